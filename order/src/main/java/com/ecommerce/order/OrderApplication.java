@@ -1,13 +1,19 @@
 package com.ecommerce.order;
 
+import com.ecommerce.shared.outbox.OutboxConfig;
+import com.ecommerce.shared.product.ProductReplicaConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
+@Import({ProductReplicaConfig.class, OutboxConfig.class})
 public class OrderApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,203 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.dtos.ProductResponse;
+import com.ecommerce.order.dtos.StockReservationRequest;
+import com.ecommerce.order.dtos.StockReservationResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent {@link #getProductDetails} calls into
+ * {@link #getProductsBatch} calls. The first caller opens a batch; it is
+ * sent when the window elapses or it reaches the maximum size, whichever
+ * comes first. Callers asking for the same id share one entry. Ids that are
+ * not product ids never join a batch, and if the product service rejects a
+ * batch each caller falls back to a single lookup under its own credentials.
+ * Every other method goes straight to the underlying client.
+ */
+public class CoalescingProductServiceClient implements ProductServiceClient, AutoCloseable {
+
+    private final ProductServiceClient delegate;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("product-batch-timer").daemon().factory());
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final Object lock = new Object();
+    private Batch current;
+
+    private static final class Batch {
+        private final Map<Long, CompletableFuture<ProductResponse>> futures = new LinkedHashMap<>();
+        private final SecurityContext securityContext = SecurityContextHolder.getContext();
+        private final long openedAt = System.nanoTime();
+    }
+
+    /**
+     * Completes the futures of a batch the product service answered with a
+     * 4xx, telling each caller to look its id up on its own.
+     */
+    private static final class BatchRejectedException extends RuntimeException {
+        private BatchRejectedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    public CoalescingProductServiceClient(ProductServiceClient delegate,
+                                          Duration window,
+                                          int maxBatchSize,
+                                          MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("product.client.batch.size")
+                .description("Distinct product ids per coalesced batch call")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("product.client.batch.wait")
+                .description("Time a coalesced batch stayed open before it was sent")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ProductResponse getProductDetails(String id) {
+        if (!isProductId(id)) {
+            // The product service answers 400 for these, which resolves to null
+            return null;
+        }
+        CompletableFuture<ProductResponse> future;
+        Batch full = null;
+        synchronized (lock) {
+            if (current == null) {
+                Batch opened = new Batch();
+                current = opened;
+                timer.schedule(() -> dispatch(opened), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            // Keyed by the parsed id, so "007" and "7" share the entry the answer is matched to
+            future = current.futures.computeIfAbsent(Long.valueOf(id), key -> new CompletableFuture<>());
+            if (current.futures.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) {
+            Batch batch = full;
+            dispatcher.execute(() -> send(batch));
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BatchRejectedException) {
+                return delegate.getProductDetails(id);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Timer path: sends the batch unless it already went out for being full.
+     */
+    private void dispatch(Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        }
+        dispatcher.execute(() -> send(batch));
+    }
+
+    /**
+     * Runs under the first caller's security context so the JWT is
+     * propagated; product data does not depend on the caller.
+     */
+    private void send(Batch batch) {
+        batchWait.record(System.nanoTime() - batch.openedAt, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.futures.size());
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(batch.securityContext);
+        try {
+            ResponseEntity<List<ProductResponse>> response = delegate.getProductsBatch(
+                    batch.futures.keySet().stream().map(String::valueOf).toList());
+            if (response.getStatusCode().is4xxClientError()) {
+                // e.g. the first caller's token expired; do not fail everyone else with it
+                BatchRejectedException rejected = new BatchRejectedException();
+                batch.futures.values().forEach(future -> future.completeExceptionally(rejected));
+                return;
+            }
+            Map<Long, ProductResponse> byId = new HashMap<>();
+            if (response.getBody() != null) {
+                response.getBody().forEach(product -> byId.put(product.getId(), product));
+            }
+            // Ids missing from the answer resolve to null, as a 404 does
+            batch.futures.forEach((id, future) -> future.complete(byId.get(id)));
+        } catch (RuntimeException e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private static boolean isProductId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 18) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ResponseEntity<List<ProductResponse>> getProductsBatch(Collection<String> ids) {
+        return delegate.getProductsBatch(ids);
+    }
+
+    @Override
+    public StockReservationResponse reserveStock(StockReservationRequest request) {
+        return delegate.reserveStock(request);
+    }
+
+    @Override
+    public StockReservationResponse getReservation(String reservationId) {
+        return delegate.getReservation(reservationId);
+    }
+
+    @Override
+    public ResponseEntity<Void> confirmReservation(String reservationId) {
+        return delegate.confirmReservation(reservationId);
+    }
+
+    @Override
+    public void releaseReservation(String reservationId) {
+        delegate.releaseReservation(reservationId);
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        dispatcher.close();
+    }
+}
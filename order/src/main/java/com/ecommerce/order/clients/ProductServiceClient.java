@@ -1,13 +1,40 @@
 package com.ecommerce.order.clients;
 
 import com.ecommerce.order.dtos.ProductResponse;
+import com.ecommerce.order.dtos.StockReservationRequest;
+import com.ecommerce.order.dtos.StockReservationResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.service.annotation.DeleteExchange;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
+import org.springframework.web.service.annotation.PostExchange;
+
+import java.util.Collection;
+import java.util.List;
 
 @HttpExchange
 public interface ProductServiceClient {
 
     @GetExchange("/api/products/{id}")
     ProductResponse getProductDetails(@PathVariable String id);
+
+    // 4xx statuses are not thrown, so callers must check the status
+    @GetExchange("/api/products")
+    ResponseEntity<List<ProductResponse>> getProductsBatch(@RequestParam("ids") Collection<String> ids);
+
+    @PostExchange("/api/products/reservations")
+    StockReservationResponse reserveStock(@RequestBody StockReservationRequest request);
+
+    @GetExchange("/api/products/reservations/{reservationId}")
+    StockReservationResponse getReservation(@PathVariable String reservationId);
+
+    // 4xx statuses are not thrown, so callers must check the status
+    @PostExchange("/api/products/reservations/{reservationId}/confirm")
+    ResponseEntity<Void> confirmReservation(@PathVariable String reservationId);
+
+    @DeleteExchange("/api/products/reservations/{reservationId}")
+    void releaseReservation(@PathVariable String reservationId);
 }
@@ -1,7 +1,9 @@
 package com.ecommerce.order.clients;
 
 import com.ecommerce.shared.security.JwtTokenPropagationInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,6 +12,7 @@ import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,7 +24,10 @@ public class ProductServiceClientConfig {
     
     @Bean
     @LoadBalanced
-    public ProductServiceClient productServiceInterface(RestClient.Builder restClientBuilder) {
+    public ProductServiceClient productServiceInterface(RestClient.Builder restClientBuilder,
+                                                        MeterRegistry meterRegistry,
+                                                        @Value("${app.product-client.batch-window:2ms}") Duration batchWindow,
+                                                        @Value("${app.product-client.max-batch-size:64}") int maxBatchSize) {
         RestClient restClient = restClientBuilder
                             .baseUrl("http://product-service")
                             .defaultStatusHandler(HttpStatusCode::is4xxClientError,
@@ -32,6 +38,7 @@ public class ProductServiceClientConfig {
         HttpServiceProxyFactory factory = HttpServiceProxyFactory
                                             .builderFor(adapter)
                                             .build();
-        return factory.createClient(ProductServiceClient.class);
+        return new CoalescingProductServiceClient(
+                factory.createClient(ProductServiceClient.class), batchWindow, maxBatchSize, meterRegistry);
     }
 }
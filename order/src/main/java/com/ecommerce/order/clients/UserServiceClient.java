@@ -2,12 +2,20 @@ package com.ecommerce.order.clients;
 
 import com.ecommerce.order.dtos.UserResponse;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 
+import java.util.Collection;
+import java.util.List;
+
 @HttpExchange
 public interface UserServiceClient {
 
     @GetExchange("/api/users/{id}")
     UserResponse getUserDetails(@PathVariable String id);
+
+    // At most 100 ids per call, the user service page size limit
+    @GetExchange("/api/users")
+    List<UserResponse> getUsersBatch(@RequestParam("ids") Collection<String> ids);
 }
@@ -0,0 +1,23 @@
+package com.ecommerce.order.config;
+
+import org.springframework.boot.actuate.data.redis.RedisHealthIndicator;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+@Configuration
+public class CartStoreConfig {
+
+    /**
+     * Reports Redis health only when carts live there. The auto-configured
+     * indicator is switched off, since with the JPA store Redis is unused
+     * and its absence should not mark the service down.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cart.store", havingValue = "redis")
+    public HealthIndicator redisHealthIndicator(RedisConnectionFactory redisConnectionFactory) {
+        return new RedisHealthIndicator(redisConnectionFactory);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Virtual-thread executor for fanning out remote validation calls.
+     * Tasks inherit the caller's SecurityContext so the JWT propagation
+     * interceptor can still forward the bearer token.
+     */
+    @Bean
+    public ExecutorService cartValidationExecutor() {
+        return new DelegatingSecurityContextExecutorService(
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -1,35 +1,100 @@
 package com.ecommerce.order.controller;
 
+import com.ecommerce.order.dtos.OrderPageResponse;
 import com.ecommerce.order.dtos.OrderResponse;
+import com.ecommerce.order.dtos.OrderTicketResponse;
+import com.ecommerce.order.exception.IdempotencyConflictException;
+import com.ecommerce.order.services.IdempotencyService;
+import com.ecommerce.order.services.OrderPlacementPipeline;
 import com.ecommerce.order.services.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/orders")
 @Slf4j
 public class OrderController {
     private final OrderService orderService;
+    private final OrderPlacementPipeline orderPlacementPipeline;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(
-            @AuthenticationPrincipal Jwt jwt) {
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             String userId = jwt.getSubject();
-            return orderService.createOrder(userId)
+            if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 100)) {
+                return ResponseEntity.badRequest().build();
+            }
+            Optional<OrderResponse> order = idempotencyKey == null
+                    ? orderService.createOrder(userId)
+                    : idempotencyService.createOrder(userId, idempotencyKey);
+            return order
                     .map(orderResponse -> new ResponseEntity<>(orderResponse, HttpStatus.CREATED))
                     .orElseGet(() -> ResponseEntity.badRequest().build());
+        } catch (IdempotencyConflictException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<OrderPageResponse> getOrderHistory(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            String userId = jwt.getSubject();
+            log.info("Getting order history for user: {}", userId);
+            return ResponseEntity.ok(orderService.getOrderHistory(userId, cursor, limit));
         } catch (Exception e) {
+            log.error("Error getting order history: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/async")
+    public ResponseEntity<OrderTicketResponse> createOrderAsync(
+            @AuthenticationPrincipal Jwt jwt) {
+        try {
+            String userId = jwt.getSubject();
+            if (!orderPlacementPipeline.hasCart(userId)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return orderPlacementPipeline.submit(userId)
+                    .map(ticket -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                            .header(HttpHeaders.LOCATION, "/api/orders/tickets/" + ticket.getTicketId())
+                            .body(ticket))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .build());
+        } catch (Exception e) {
+            log.error("Error queueing order: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<OrderTicketResponse> getTicket(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable String ticketId) {
+        return orderPlacementPipeline.getTicket(ticketId, jwt.getSubject())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id) {
         try {
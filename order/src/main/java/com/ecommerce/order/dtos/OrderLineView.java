@@ -0,0 +1,26 @@
+package com.ecommerce.order.dtos;
+
+import com.ecommerce.order.models.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat row of an order joined with one of its items, read straight from
+ * JPQL without materialising entities.
+ */
+@Data
+@AllArgsConstructor
+public class OrderLineView {
+    private Long orderId;
+    private BigDecimal totalAmount;
+    private OrderStatus status;
+    private LocalDateTime createdAt;
+    private Long itemId;
+    private String productId;
+    private Integer quantity;
+    private BigDecimal price;
+    private BigDecimal lineTotal;
+}
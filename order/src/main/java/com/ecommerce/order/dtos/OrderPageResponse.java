@@ -0,0 +1,14 @@
+package com.ecommerce.order.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> orders;
+
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.order.dtos;
+
+import com.ecommerce.order.models.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OrderTicketResponse {
+    private String ticketId;
+
+    private TicketStatus status;
+
+    private Long orderId;
+
+    private String message;
+
+    private LocalDateTime createdAt;
+}
@@ -33,4 +33,6 @@ public class ProductResponse {
     
     @NotNull(message = "Active status is required")
     private Boolean active;
+
+    private Long version;
 }
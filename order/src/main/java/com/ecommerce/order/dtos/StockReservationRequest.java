@@ -0,0 +1,18 @@
+package com.ecommerce.order.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequest {
+    @Valid
+    @NotEmpty(message = "At least one item is required")
+    private List<ReservationItemRequest> items;
+}
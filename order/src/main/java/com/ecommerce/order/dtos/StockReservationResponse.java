@@ -0,0 +1,17 @@
+package com.ecommerce.order.dtos;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class StockReservationResponse {
+    private String reservationId;
+
+    private String status;
+
+    private List<ReservationItemRequest> items;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.order.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String idempotencyKey) {
+        super("Request with idempotency key " + idempotencyKey + " is still in progress");
+    }
+}
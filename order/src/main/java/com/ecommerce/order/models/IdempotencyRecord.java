@@ -0,0 +1,42 @@
+package com.ecommerce.order.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    /** User id and client-supplied key, joined with ':'. */
+    @Id
+    @Column(length = 200)
+    private String id;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    /** Order created by the first attempt; null if that attempt was rejected. */
+    @Column(name = "order_id")
+    private Long orderId;
+
+    /** Identifies the attempt holding the claim, so a superseded attempt cannot write. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
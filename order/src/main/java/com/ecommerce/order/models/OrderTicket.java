@@ -0,0 +1,74 @@
+package com.ecommerce.order.models;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_tickets", indexes = {
+        @Index(name = "idx_order_tickets_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTicket implements Persistable<String> {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @NotBlank(message = "User ID is required")
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull(message = "Ticket status is required")
+    @Column(nullable = false, length = 20)
+    private TicketStatus status = TicketStatus.QUEUED;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = 500)
+    private String message;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // The id is assigned up front, so save() cannot tell a new ticket by it
+    // and would merge, selecting the row first
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newTicket = true;
+
+    @Override
+    public boolean isNew() {
+        return newTicket;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newTicket = false;
+    }
+}
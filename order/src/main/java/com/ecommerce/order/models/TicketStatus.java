@@ -0,0 +1,5 @@
+package com.ecommerce.order.models;
+
+public enum TicketStatus {
+    QUEUED, PROCESSING, COMPLETED, REJECTED, FAILED
+}
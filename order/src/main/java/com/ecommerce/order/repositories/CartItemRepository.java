@@ -19,7 +19,8 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     @Modifying
     @Transactional
-    void deleteByUserIdAndProductId(String userId, String productId);
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId AND c.productId = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") String userId, @Param("productId") String productId);
 
     List<CartItem> findByUserId(String userId);
     
@@ -27,7 +28,24 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     @Modifying
     @Transactional
-    void deleteByUserId(String userId);
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    /**
+     * Adds to the line's quantity, inserting it if absent, in one statement.
+     * Relies on the unique (user_id, product_id) constraint on cart_items.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, quantity, price, created_at, updated_at) " +
+            "VALUES (:userId, :productId, :quantity, :price, now(), now()) " +
+            "ON CONFLICT (user_id, product_id) DO UPDATE SET " +
+            "quantity = cart_items.quantity + excluded.quantity, price = excluded.price, updated_at = now()",
+            nativeQuery = true)
+    int upsertItem(@Param("userId") String userId,
+                   @Param("productId") String productId,
+                   @Param("quantity") int quantity,
+                   @Param("price") BigDecimal price);
     
     @Query("SELECT c FROM CartItem c WHERE c.userId = :userId AND c.createdAt >= :since ORDER BY c.createdAt DESC")
     List<CartItem> findByUserIdAndCreatedAtAfter(@Param("userId") String userId, 
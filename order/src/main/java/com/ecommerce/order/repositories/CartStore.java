@@ -0,0 +1,30 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.CartItem;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Storage for shopping carts. Selected with {@code app.cart.store}.
+ */
+public interface CartStore {
+
+    /**
+     * Adds {@code quantity} to the line for {@code productId}, creating it if
+     * absent, and records the latest unit price.
+     */
+    void addItem(String userId, String productId, int quantity, BigDecimal price);
+
+    boolean removeItem(String userId, String productId);
+
+    List<CartItem> getItems(String userId);
+
+    boolean hasItems(String userId);
+
+    /**
+     * Empties the cart. When a transaction is active, stores that cannot take
+     * part in it defer the clear until after commit.
+     */
+    void clear(String userId);
+}
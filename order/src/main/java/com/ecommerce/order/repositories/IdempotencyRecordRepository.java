@@ -0,0 +1,69 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Every expiry is computed and compared with the database clock so
+ * instances with drifting clocks agree on when a claim lapses.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims the key for this attempt with a short lease. Returns 1 when the
+     * key was free, its result had expired or the previous attempt stopped
+     * renewing its lease; 0 when another attempt holds it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, status, order_id, claim_token, created_at, expires_at) " +
+            "VALUES (:id, 'IN_PROGRESS', NULL, :token, now(), now() + :leaseSeconds * interval '1 second') " +
+            "ON CONFLICT (id) DO UPDATE SET status = 'IN_PROGRESS', order_id = NULL, " +
+            "claim_token = excluded.claim_token, created_at = now(), expires_at = excluded.expires_at " +
+            "WHERE idempotency_keys.expires_at < now()",
+            nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("token") String token,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_keys SET expires_at = now() + :leaseSeconds * interval '1 second' " +
+            "WHERE id = :id AND claim_token = :token AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int renew(@Param("id") String id,
+              @Param("token") String token,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Records the result; joins the caller's transaction when there is one,
+     * so it commits together with the order. Returns 0 if the claim was lost.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_keys SET status = 'COMPLETED', order_id = :orderId, " +
+            "expires_at = now() + :ttlSeconds * interval '1 second' " +
+            "WHERE id = :id AND claim_token = :token AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int complete(@Param("id") String id,
+                 @Param("token") String token,
+                 @Param("orderId") Long orderId,
+                 @Param("ttlSeconds") long ttlSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND claim_token = :token AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int release(@Param("id") String id, @Param("token") String token);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < now()", nativeQuery = true)
+    int deleteExpired();
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.CartItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaCartStore implements CartStore {
+    private final CartItemRepository cartItemRepository;
+
+    @Override
+    public void addItem(String userId, String productId, int quantity, BigDecimal price) {
+        cartItemRepository.upsertItem(userId, productId, quantity, price);
+    }
+
+    @Override
+    public boolean removeItem(String userId, String productId) {
+        return cartItemRepository.deleteByUserIdAndProductId(userId, productId) > 0;
+    }
+
+    @Override
+    public List<CartItem> getItems(String userId) {
+        return cartItemRepository.findByUserId(userId);
+    }
+
+    @Override
+    public boolean hasItems(String userId) {
+        return cartItemRepository.countByUserId(userId) > 0;
+    }
+
+    @Override
+    public void clear(String userId) {
+        cartItemRepository.deleteByUserId(userId);
+    }
+}
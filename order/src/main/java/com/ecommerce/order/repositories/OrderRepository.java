@@ -1,8 +1,11 @@
 package com.ecommerce.order.repositories;
 
+import com.ecommerce.order.dtos.OrderLineView;
 import com.ecommerce.order.models.Order;
 import com.ecommerce.order.models.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +34,26 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                             @Param("since") LocalDateTime since);
     
     Optional<Order> findByIdAndUserId(Long id, String userId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = CURRENT_TIMESTAMP WHERE o.id = :id AND o.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to);
+
+    @Query("SELECT new com.ecommerce.order.dtos.OrderLineView(" +
+            "o.id, o.totalAmount, o.status, o.createdAt, i.id, i.productId, i.quantity, i.price, i.price * i.quantity) " +
+            "FROM Order o LEFT JOIN o.items i WHERE o.id = :orderId ORDER BY i.id")
+    List<OrderLineView> findOrderLines(@Param("orderId") Long orderId);
+
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPageByUserId(@Param("userId") String userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByUserIdAfter(@Param("userId") String userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
 }
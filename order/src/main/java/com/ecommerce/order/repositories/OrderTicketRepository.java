@@ -0,0 +1,48 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.OrderTicket;
+import com.ecommerce.order.models.TicketStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface OrderTicketRepository extends JpaRepository<OrderTicket, String> {
+    Optional<OrderTicket> findByIdAndUserId(String id, String userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderTicket t SET t.status = :to, t.orderId = :orderId, t.message = :message, " +
+            "t.updatedAt = CURRENT_TIMESTAMP WHERE t.id = :id AND t.status = :from")
+    int transition(@Param("id") String id,
+                   @Param("from") TicketStatus from,
+                   @Param("to") TicketStatus to,
+                   @Param("orderId") Long orderId,
+                   @Param("message") String message);
+
+    /**
+     * Heartbeat from the instance holding these tickets, so they are not
+     * mistaken for tickets left behind by a stopped instance.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderTicket t SET t.updatedAt = CURRENT_TIMESTAMP WHERE t.id IN :ids AND t.status IN :statuses")
+    int touch(@Param("ids") Collection<String> ids,
+              @Param("statuses") Collection<TicketStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderTicket t SET t.status = :to, t.message = :message, t.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE t.status IN :from AND t.updatedAt < :cutoff")
+    int expireStale(@Param("from") Collection<TicketStatus> from,
+                    @Param("to") TicketStatus to,
+                    @Param("message") String message,
+                    @Param("cutoff") LocalDateTime cutoff);
+}
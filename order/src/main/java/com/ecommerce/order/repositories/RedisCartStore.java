@@ -0,0 +1,194 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.CartItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps each cart as one Redis hash, {@code cart:<userId>}, with three
+ * fields per line: {@code q:<productId>} (quantity), {@code p:<productId>}
+ * (unit price) and {@code t:<productId>} (added-at epoch millis). The whole
+ * hash expires after the cart has been idle for {@code app.cart.redis.idle-ttl}.
+ * Carts moved over from the cart_items table also carry a {@code migrated}
+ * field.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "redis")
+@Slf4j
+public class RedisCartStore implements CartStore {
+    private static final String KEY_PREFIX = "cart:";
+    private static final String QUANTITY = "q:";
+    private static final String PRICE = "p:";
+    private static final String ADDED_AT = "t:";
+    private static final String MIGRATED = "migrated";
+
+    private static final RedisScript<Long> ADD_ITEM = new DefaultRedisScript<>("""
+            local qty = redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[1], ARGV[2])
+            redis.call('HSET', KEYS[1], 'p:' .. ARGV[1], ARGV[3])
+            redis.call('HSETNX', KEYS[1], 't:' .. ARGV[1], ARGV[4])
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            return qty
+            """, Long.class);
+
+    // Deletes the hash once only the migration marker is left, so an emptied cart has no key
+    private static final RedisScript<Long> REMOVE_ITEM = new DefaultRedisScript<>("""
+            local removed = redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1], 'p:' .. ARGV[1], 't:' .. ARGV[1])
+            if redis.call('HLEN', KEYS[1]) == 1 and redis.call('HEXISTS', KEYS[1], 'migrated') == 1 then
+                redis.call('DEL', KEYS[1])
+            end
+            return removed
+            """, Long.class);
+
+    /**
+     * ARGV: idle TTL, then productId, quantity, price, added-at per line.
+     * Adds legacy quantities to whatever the hash already holds, and only
+     * once per cart, so neither increments that got in first nor a
+     * concurrent migration of the same rows lose or double a line.
+     */
+    private static final RedisScript<Long> MIGRATE = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], 'migrated') == 1 then
+                return 0
+            end
+            for i = 2, #ARGV, 4 do
+                redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1])
+                redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[i], ARGV[i + 2])
+                redis.call('HSETNX', KEYS[1], 't:' .. ARGV[i], ARGV[i + 3])
+            end
+            redis.call('HSET', KEYS[1], 'migrated', '1')
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartItemRepository cartItemRepository;
+    private final Duration idleTtl;
+    private final boolean migrateFromJpa;
+
+    public RedisCartStore(StringRedisTemplate redisTemplate,
+                          CartItemRepository cartItemRepository,
+                          @Value("${app.cart.redis.idle-ttl:7d}") Duration idleTtl,
+                          @Value("${app.cart.redis.migrate-from-jpa:false}") boolean migrateFromJpa) {
+        this.redisTemplate = redisTemplate;
+        this.cartItemRepository = cartItemRepository;
+        this.idleTtl = idleTtl;
+        this.migrateFromJpa = migrateFromJpa;
+    }
+
+    @Override
+    public void addItem(String userId, String productId, int quantity, BigDecimal price) {
+        migrateIfNeeded(userId);
+        redisTemplate.execute(ADD_ITEM, List.of(key(userId)),
+                productId,
+                String.valueOf(quantity),
+                price.toPlainString(),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(idleTtl.toMillis()));
+    }
+
+    @Override
+    public boolean removeItem(String userId, String productId) {
+        migrateIfNeeded(userId);
+        Long removed = redisTemplate.execute(REMOVE_ITEM, List.of(key(userId)), productId);
+        return removed != null && removed > 0;
+    }
+
+    @Override
+    public List<CartItem> getItems(String userId) {
+        migrateIfNeeded(userId);
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(userId));
+        List<CartItem> items = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            String name = (String) field;
+            if (!name.startsWith(QUANTITY)) {
+                return;
+            }
+            String productId = name.substring(QUANTITY.length());
+            Object price = fields.get(PRICE + productId);
+            Object addedAt = fields.get(ADDED_AT + productId);
+            CartItem item = new CartItem();
+            item.setUserId(userId);
+            item.setProductId(productId);
+            item.setQuantity(Integer.valueOf((String) value));
+            item.setPrice(price != null ? new BigDecimal((String) price) : null);
+            item.setCreatedAt(addedAt != null ? toDateTime((String) addedAt) : null);
+            items.add(item);
+        });
+        items.sort(Comparator.comparing(CartItem::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return items;
+    }
+
+    @Override
+    public boolean hasItems(String userId) {
+        migrateIfNeeded(userId);
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)));
+    }
+
+    @Override
+    public void clear(String userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Keep the cart if the surrounding order transaction rolls back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    redisTemplate.delete(key(userId));
+                }
+            });
+        } else {
+            redisTemplate.delete(key(userId));
+        }
+    }
+
+    /**
+     * Lazily moves a user's cart from the cart_items table on first access.
+     * The move is a single script, so an increment that runs while another
+     * request is still migrating cannot hide the legacy quantity.
+     */
+    private void migrateIfNeeded(String userId) {
+        if (!migrateFromJpa || Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)))) {
+            return;
+        }
+        List<CartItem> legacyItems = cartItemRepository.findByUserId(userId);
+        if (legacyItems.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(idleTtl.toMillis()));
+        legacyItems.forEach(item -> {
+            args.add(item.getProductId());
+            args.add(String.valueOf(item.getQuantity()));
+            args.add(item.getPrice().toPlainString());
+            args.add(String.valueOf(
+                    item.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        });
+        Long migrated = redisTemplate.execute(MIGRATE, List.of(key(userId)), args.toArray());
+        cartItemRepository.deleteByUserId(userId);
+        if (migrated != null && migrated == 1) {
+            log.info("Migrated {} cart lines for user {} to Redis", legacyItems.size(), userId);
+        }
+    }
+
+    private String key(String userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private LocalDateTime toDateTime(String epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(epochMillis)), ZoneId.systemDefault());
+    }
+}
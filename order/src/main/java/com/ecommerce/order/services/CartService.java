@@ -4,64 +4,150 @@ import com.ecommerce.order.clients.ProductServiceClient;
 import com.ecommerce.order.clients.UserServiceClient;
 import com.ecommerce.order.dtos.ProductResponse;
 import com.ecommerce.order.dtos.UserResponse;
-import com.ecommerce.order.repositories.CartItemRepository;
+import com.ecommerce.order.repositories.CartStore;
 import com.ecommerce.order.dtos.CartItemRequest;
 import com.ecommerce.order.models.CartItem;
+import com.ecommerce.shared.product.ProductReplica;
+import com.ecommerce.shared.product.ProductUpdatedEvent;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartService {
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final ProductServiceClient productServiceClient;
+    private final ProductReplica productReplica;
     private final UserServiceClient userServiceClient;
+    private final ExecutorService cartValidationExecutor;
     int attempt = 0;
 
+    @Value("${app.cart.parallel-validation:true}")
+    private boolean parallelValidation;
+
 //    @CircuitBreaker(name = "productService", fallbackMethod = "addToCartFallBack")
 @Retry(name = "retryBreaker", fallbackMethod = "addToCartFallBack")
     public boolean addToCart(String userId, CartItemRequest request) {
         log.info("Attempt {}: Adding item to cart for user: {}", ++attempt, userId);
         
         // Validate external services first (outside transaction)
-        ProductResponse productResponse = productServiceClient.getProductDetails(request.getProductId());
-        if (productResponse == null || productResponse.getStockQuantity() < request.getQuantity())
+        ProductResponse productResponse = parallelValidation
+                ? validateConcurrently(userId, request)
+                : validateSequentially(userId, request);
+        if (productResponse == null)
             return false;
 
+        // Perform database operations in a separate transaction
+        return updateCartInTransaction(userId, request, productResponse.getPrice());
+    }
+
+    private ProductResponse validateSequentially(String userId, CartItemRequest request) {
+        ProductResponse productResponse = localProduct(request.getProductId())
+                .orElseGet(() -> fetchProduct(request.getProductId()));
+        if (!isAvailable(productResponse, request))
+            return null;
+
         UserResponse userResponse = userServiceClient.getUserDetails(userId);
         if (userResponse == null)
-            return false;
+            return null;
 
-        // Perform database operations in a separate transaction
-        return updateCartInTransaction(userId, request, productResponse.getPrice());
+        return productResponse;
     }
 
-    @Transactional
-    private boolean updateCartInTransaction(String userId, CartItemRequest request, BigDecimal price) {
+    /**
+     * Issues the product and user lookups in parallel and returns as soon as
+     * either one rejects, so latency is the slower call instead of the sum.
+     */
+    private ProductResponse validateConcurrently(String userId, CartItemRequest request) {
+        CompletableFuture<ProductResponse> productFuture = localProduct(request.getProductId())
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.supplyAsync(
+                        () -> fetchProduct(request.getProductId()), cartValidationExecutor));
+        CompletableFuture<UserResponse> userFuture = CompletableFuture.supplyAsync(
+                () -> userServiceClient.getUserDetails(userId), cartValidationExecutor);
+
+        CompletableFuture<Boolean> verdict = new CompletableFuture<>();
+        List<CompletableFuture<Boolean>> checks = List.of(
+                productFuture.thenApply(product -> isAvailable(product, request)),
+                userFuture.thenApply(Objects::nonNull));
+        checks.forEach(check -> check.whenComplete((valid, ex) -> {
+            if (ex != null)
+                verdict.completeExceptionally(ex);
+            else if (!valid)
+                verdict.complete(false);
+        }));
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new))
+                .thenRun(() -> verdict.complete(true));
+
         try {
-            CartItem existingCartItem = cartItemRepository.findByUserIdAndProductId(userId, request.getProductId()).orElse(null);
-            if (existingCartItem != null) {
-                // Update the quantity
-                existingCartItem.setQuantity(existingCartItem.getQuantity() + request.getQuantity());
-                existingCartItem.setPrice(price);
-                cartItemRepository.save(existingCartItem);
-            } else {
-                // Create new cart item
-               CartItem cartItem = new CartItem();
-               cartItem.setUserId(userId);
-               cartItem.setProductId(request.getProductId());
-               cartItem.setQuantity(request.getQuantity());
-               cartItem.setPrice(price);
-               cartItemRepository.save(cartItem);
+            if (!verdict.join()) {
+                productFuture.cancel(true);
+                userFuture.cancel(true);
+                return null;
             }
+            return productFuture.join();
+        } catch (CompletionException e) {
+            productFuture.cancel(true);
+            userFuture.cancel(true);
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the product from the replica fed by product-updated events, so
+     * a hit needs no call to product-service.
+     */
+    private Optional<ProductResponse> localProduct(String productId) {
+        try {
+            return productReplica.get(Long.valueOf(productId)).map(this::toProductResponse);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ProductResponse fetchProduct(String productId) {
+        ProductResponse product = productServiceClient.getProductDetails(productId);
+        if (product != null && product.getId() != null) {
+            productReplica.apply(new ProductUpdatedEvent(product.getId(), product.getPrice(),
+                    product.getStockQuantity(), product.getActive(), product.getVersion()));
+        }
+        return product;
+    }
+
+    private ProductResponse toProductResponse(ProductUpdatedEvent event) {
+        ProductResponse response = new ProductResponse();
+        response.setId(event.id());
+        response.setPrice(event.price());
+        response.setStockQuantity(event.stockQuantity());
+        response.setActive(event.active());
+        response.setVersion(event.version());
+        return response;
+    }
+
+    private boolean isAvailable(ProductResponse productResponse, CartItemRequest request) {
+        return productResponse != null
+                && !Boolean.FALSE.equals(productResponse.getActive())
+                && productResponse.getStockQuantity() >= request.getQuantity();
+    }
+
+    private boolean updateCartInTransaction(String userId, CartItemRequest request, BigDecimal price) {
+        try {
+            cartStore.addItem(userId, request.getProductId(), request.getQuantity(), price);
             return true;
         } catch (Exception e) {
             log.error("Error updating cart for user {}: {}", userId, e.getMessage());
@@ -77,20 +163,18 @@ public class CartService {
     }
 
     public boolean deleteItemFromCart(String userId, String productId) {
-        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId).orElse(null);
-
-        if (cartItem != null){
-            cartItemRepository.delete(cartItem);
-            return true;
-        }
-        return false;
+        return cartStore.removeItem(userId, productId);
     }
 
     public List<CartItem> getCart(String userId) {
-        return cartItemRepository.findByUserId(userId);
+        return cartStore.getItems(userId);
+    }
+
+    public boolean hasItems(String userId) {
+        return cartStore.hasItems(userId);
     }
 
     public void clearCart(String userId) {
-        cartItemRepository.deleteByUserId(userId);
+        cartStore.clear(userId);
     }
 }
@@ -0,0 +1,150 @@
+package com.ecommerce.order.services;
+
+import com.ecommerce.order.dtos.OrderResponse;
+import com.ecommerce.order.exception.IdempotencyConflictException;
+import com.ecommerce.order.models.IdempotencyRecord;
+import com.ecommerce.order.repositories.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes order creation safe to retry with an {@code Idempotency-Key}. The
+ * first attempt claims the key in the database with a short lease that it
+ * renews while it runs; replays get the order that attempt created, and
+ * concurrent duplicates wait for it instead of racing. If the owning
+ * instance dies, its lease lapses and a waiting or later retry takes over.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final OrderService orderService;
+    private final Map<String, Attempt> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.orders.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${app.orders.idempotency.lease:30s}")
+    private Duration lease;
+
+    @Value("${app.orders.idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    private record Attempt(String token, CompletableFuture<Optional<OrderResponse>> result) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              OrderService orderService) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.orderService = orderService;
+    }
+
+    public Optional<OrderResponse> createOrder(String userId, String idempotencyKey) {
+        String id = userId + ":" + idempotencyKey;
+        String token = UUID.randomUUID().toString();
+        if (idempotencyRecordRepository.claim(id, token, lease.toSeconds()) == 1) {
+            return runFirstAttempt(id, token, userId);
+        }
+        log.info("Replaying idempotent order request {}", id);
+        return awaitFirstAttempt(id, userId, idempotencyKey);
+    }
+
+    private Optional<OrderResponse> runFirstAttempt(String id, String token, String userId) {
+        Attempt attempt = new Attempt(token, new CompletableFuture<>());
+        inFlight.put(id, attempt);
+        try {
+            // A created order records the key in its own transaction, so the key
+            // can never be released once an order exists
+            Optional<OrderResponse> order = orderService.createOrder(userId,
+                    orderId -> recordResult(id, token, orderId));
+            if (order.isEmpty()) {
+                recordResult(id, token, null);
+            }
+            attempt.result().complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            // Free the key so the client can retry a failed attempt
+            idempotencyRecordRepository.release(id, token);
+            attempt.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    private void recordResult(String id, String token, Long orderId) {
+        if (idempotencyRecordRepository.complete(id, token, orderId, ttl.toSeconds()) == 0) {
+            throw new IllegalStateException("Idempotency claim " + id + " was taken over by another attempt");
+        }
+    }
+
+    private Optional<OrderResponse> awaitFirstAttempt(String id, String userId, String idempotencyKey) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        // Same-instance duplicates wait on the first attempt directly
+        Attempt local = inFlight.get(id);
+        if (local != null) {
+            try {
+                return local.result().get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IdempotencyConflictException(idempotencyKey);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException(idempotencyKey);
+            }
+        }
+
+        // Otherwise the first attempt runs elsewhere; poll until it records a
+        // result, or take over once its owner released the key or stopped renewing
+        while (System.nanoTime() < deadline) {
+            String token = UUID.randomUUID().toString();
+            if (idempotencyRecordRepository.claim(id, token, lease.toSeconds()) == 1) {
+                log.info("Taking over idempotent order request {}", id);
+                return runFirstAttempt(id, token, userId);
+            }
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(id);
+            if (record.isPresent() && IdempotencyRecord.COMPLETED.equals(record.get().getStatus())) {
+                Long orderId = record.get().getOrderId();
+                return orderId == null ? Optional.empty() : orderService.getOrder(orderId);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyConflictException(idempotencyKey);
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.heartbeat-interval:10s}")
+    public void renewLeases() {
+        inFlight.forEach((id, attempt) -> {
+            if (idempotencyRecordRepository.renew(id, attempt.token(), lease.toSeconds()) == 0) {
+                log.warn("Lost idempotency claim {} while its attempt was running", id);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.cleanup-interval:1h}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired();
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.order.services;
+
+import com.ecommerce.order.dtos.OrderResponse;
+import com.ecommerce.order.dtos.OrderTicketResponse;
+import com.ecommerce.order.models.OrderTicket;
+import com.ecommerce.order.models.TicketStatus;
+import com.ecommerce.order.repositories.OrderTicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Accepts checkouts as tickets and places the orders on a fixed set of
+ * single-threaded lanes. A user always hashes to the same lane, so their
+ * checkouts run in submission order, and each lane has a bounded queue so
+ * bursts are rejected instead of piling up on Tomcat threads and the pool.
+ * The instance heartbeats the tickets it holds, and every status change is
+ * conditional on the expected current status, so a ticket expired as stale
+ * is never picked up or completed afterwards.
+ */
+@Service
+@Slf4j
+public class OrderPlacementPipeline {
+    private final OrderService orderService;
+    private final CartService cartService;
+    private final OrderTicketRepository orderTicketRepository;
+    private final List<ThreadPoolExecutor> lanes;
+    private final Set<String> heldTickets = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.orders.async.stale-after:10m}")
+    private Duration staleAfter;
+
+    public OrderPlacementPipeline(OrderService orderService,
+                                  CartService cartService,
+                                  OrderTicketRepository orderTicketRepository,
+                                  @Value("${app.orders.async.lanes:8}") int laneCount,
+                                  @Value("${app.orders.async.queue-capacity:128}") int queueCapacity) {
+        this.orderService = orderService;
+        this.cartService = cartService;
+        this.orderTicketRepository = orderTicketRepository;
+        this.lanes = IntStream.range(0, laneCount)
+                .mapToObj(lane -> new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        runnable -> new Thread(runnable, "order-lane-" + lane)))
+                .toList();
+    }
+
+    /**
+     * @return the queued ticket, or empty when the user's lane is full
+     */
+    public Optional<OrderTicketResponse> submit(String userId) {
+        OrderTicket ticket = new OrderTicket();
+        ticket.setId(UUID.randomUUID().toString());
+        ticket.setUserId(userId);
+        OrderTicket saved = orderTicketRepository.save(ticket);
+
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        heldTickets.add(saved.getId());
+        try {
+            laneFor(userId).execute(() -> process(saved.getId(), userId, securityContext));
+        } catch (RejectedExecutionException e) {
+            log.warn("Order lane full, rejecting checkout for user {}", userId);
+            heldTickets.remove(saved.getId());
+            orderTicketRepository.deleteById(saved.getId());
+            return Optional.empty();
+        }
+        return Optional.of(mapToTicketResponse(saved));
+    }
+
+    public boolean hasCart(String userId) {
+        return cartService.hasItems(userId);
+    }
+
+    public Optional<OrderTicketResponse> getTicket(String ticketId, String userId) {
+        return orderTicketRepository.findByIdAndUserId(ticketId, userId)
+                .map(this::mapToTicketResponse);
+    }
+
+    private void process(String ticketId, String userId, SecurityContext securityContext) {
+        // Product-service calls need the submitter's JWT
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            if (orderTicketRepository.transition(ticketId, TicketStatus.QUEUED, TicketStatus.PROCESSING,
+                    null, null) == 0) {
+                // Expired while queued; the client may already have retried
+                log.warn("Skipping order ticket {}, it is no longer queued", ticketId);
+                return;
+            }
+            Optional<OrderResponse> order;
+            try {
+                order = orderService.createOrder(userId);
+            } catch (Exception e) {
+                log.error("Error placing order for ticket {}: {}", ticketId, e.getMessage());
+                finish(ticketId, TicketStatus.FAILED, null, e.getMessage());
+                return;
+            }
+            if (order.isPresent()) {
+                finish(ticketId, TicketStatus.COMPLETED, order.get().getId(), null);
+            } else {
+                finish(ticketId, TicketStatus.REJECTED, null, "Cart is empty or stock is unavailable");
+            }
+        } catch (Exception e) {
+            log.error("Error updating order ticket {}: {}", ticketId, e.getMessage());
+        } finally {
+            heldTickets.remove(ticketId);
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void finish(String ticketId, TicketStatus status, Long orderId, String message) {
+        if (orderTicketRepository.transition(ticketId, TicketStatus.PROCESSING, status, orderId, message) == 0) {
+            log.error("Order ticket {} expired while processing, could not record {} (order {})",
+                    ticketId, status, orderId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.async.heartbeat-interval:1m}")
+    public void heartbeatTickets() {
+        if (!heldTickets.isEmpty()) {
+            orderTicketRepository.touch(List.copyOf(heldTickets),
+                    List.of(TicketStatus.QUEUED, TicketStatus.PROCESSING));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.async.stale-check-interval:1m}")
+    public void expireStaleTickets() {
+        // Tickets left behind by an instance that stopped mid-flight
+        int expired = orderTicketRepository.expireStale(
+                List.of(TicketStatus.QUEUED, TicketStatus.PROCESSING),
+                TicketStatus.FAILED,
+                "Ticket was not processed in time",
+                LocalDateTime.now().minus(staleAfter));
+        if (expired > 0) {
+            log.warn("Marked {} stale order tickets as failed", expired);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lanes.forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private ThreadPoolExecutor laneFor(String userId) {
+        return lanes.get(Math.floorMod(userId.hashCode(), lanes.size()));
+    }
+
+    private OrderTicketResponse mapToTicketResponse(OrderTicket ticket) {
+        return new OrderTicketResponse(
+                ticket.getId(),
+                ticket.getStatus(),
+                ticket.getOrderId(),
+                ticket.getMessage(),
+                ticket.getCreatedAt()
+        );
+    }
+}
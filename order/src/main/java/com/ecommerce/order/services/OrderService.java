@@ -1,6 +1,13 @@
 package com.ecommerce.order.services;
 
+import com.ecommerce.order.clients.ProductServiceClient;
 import com.ecommerce.order.dtos.OrderCreatedEvent;
+import com.ecommerce.order.dtos.OrderLineView;
+import com.ecommerce.order.dtos.OrderPageResponse;
+import com.ecommerce.order.dtos.ReservationItemRequest;
+import com.ecommerce.order.dtos.StockReservationRequest;
+import com.ecommerce.order.dtos.StockReservationResponse;
+import com.ecommerce.order.repositories.OrderItemRepository;
 import com.ecommerce.order.repositories.OrderRepository;
 import com.ecommerce.order.models.OrderStatus;
 import com.ecommerce.order.dtos.OrderItemDTO;
@@ -8,24 +15,59 @@ import com.ecommerce.order.dtos.OrderResponse;
 import com.ecommerce.order.models.CartItem;
 import com.ecommerce.order.models.Order;
 import com.ecommerce.order.models.OrderItem;
+import com.ecommerce.shared.outbox.OutboxService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderService {
+    private static final String ORDER_CREATED_TOPIC = "order-created";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CONFIRMED_RESERVATION = "CONFIRMED";
+
     private final CartService cartService;
     private final OrderRepository orderRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductServiceClient productServiceClient;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.confirm.max-attempts:3}")
+    private int confirmMaxAttempts;
+
+    @Value("${app.orders.confirm.backoff:200ms}")
+    private Duration confirmBackoff;
 
     public Optional<OrderResponse> createOrder(String userId) {
+        return createOrder(userId, orderId -> {
+        });
+    }
+
+    /**
+     * @param onConfirmed runs inside the transaction that confirms the order,
+     *                    so anything it writes commits or rolls back with it
+     */
+    public Optional<OrderResponse> createOrder(String userId, Consumer<Long> onConfirmed) {
         // Validate for cart items
         List<CartItem> cartItems = cartService.getCart(userId);
         if (cartItems.isEmpty()) {
@@ -39,15 +81,24 @@ public class OrderService {
 //        }
 //        User user = userOptional.get();
 
+        // Reserve stock for every line in one call; rejected if any line is short
+        StockReservationResponse reservation = productServiceClient.reserveStock(
+                new StockReservationRequest(cartItems.stream()
+                        .map(item -> new ReservationItemRequest(item.getProductId(), item.getQuantity()))
+                        .toList()));
+        if (reservation == null) {
+            return Optional.empty();
+        }
+
         // Calculate total price
         BigDecimal totalPrice = cartItems.stream()
                 .map(item -> item.getPrice().multiply(new BigDecimal(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Create order
+        // Create order; it stays PENDING until product-service confirms the stock
         Order order = new Order();
         order.setUserId(userId);
-        order.setStatus(OrderStatus.CONFIRMED);
+        order.setStatus(OrderStatus.PENDING);
         order.setTotalAmount(totalPrice);
 
         List<OrderItem> orderItems = cartItems.stream()
@@ -61,28 +112,185 @@ public class OrderService {
                 .toList();
 
         order.setItems(orderItems);
-        Order savedOrder = orderRepository.save(order);
-
-        // Clear the cart
-        cartService.clearCart(userId);
-
-        // Publish order created event
-        OrderCreatedEvent event = new OrderCreatedEvent(
-          savedOrder.getId(),
-          savedOrder.getUserId(),
-          savedOrder.getStatus(),
-          mapToOrderItemDTOs(savedOrder.getItems()),
-          savedOrder.getTotalAmount(),
-          savedOrder.getCreatedAt()
-        );
-        kafkaTemplate.send("order-created", event);
+        String reservationId = reservation.getReservationId();
+        Order savedOrder;
+        try {
+            savedOrder = transactionTemplate.execute(status -> orderRepository.save(order));
+        } catch (RuntimeException e) {
+            releaseReservation(reservationId, e);
+            throw e;
+        }
+
+        if (!confirmReservation(reservationId)) {
+            // The reservation expired or was released, so the stock may already be resold
+            log.warn("Reservation {} could not be confirmed, cancelling order {}", reservationId, savedOrder.getId());
+            transactionTemplate.executeWithoutResult(status -> orderRepository.transitionStatus(
+                    savedOrder.getId(), OrderStatus.PENDING, OrderStatus.CANCELLED));
+            releaseReservation(reservationId, null);
+            return Optional.empty();
+        }
+
+        try {
+            // Status, cart clear and outbox event commit or roll back together
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.transitionStatus(savedOrder.getId(), OrderStatus.PENDING, OrderStatus.CONFIRMED);
+                savedOrder.setStatus(OrderStatus.CONFIRMED);
+                cartService.clearCart(userId);
+                outboxService.enqueue(ORDER_CREATED_TOPIC, savedOrder.getUserId(), new OrderCreatedEvent(
+                        savedOrder.getId(),
+                        savedOrder.getUserId(),
+                        savedOrder.getStatus(),
+                        mapToOrderItemDTOs(savedOrder.getItems()),
+                        savedOrder.getTotalAmount(),
+                        savedOrder.getCreatedAt()
+                ));
+                onConfirmed.accept(savedOrder.getId());
+            });
+        } catch (RuntimeException e) {
+            // Stock is confirmed, so the order is left PENDING for reconciliation rather than cancelled
+            log.error("Order {} holds confirmed reservation {} but could not be finalized: {}",
+                    savedOrder.getId(), reservationId, e.getMessage());
+            throw e;
+        }
 
         return Optional.of(mapToOrderResponse(savedOrder));
     }
 
+    /**
+     * Confirms the reservation, retrying I/O failures and 5xx responses. A
+     * rejection is double-checked against the reservation itself, since an
+     * earlier attempt may have confirmed it before its response was lost.
+     */
+    private boolean confirmReservation(String reservationId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ResponseEntity<Void> response = productServiceClient.confirmReservation(reservationId);
+                return (response != null && response.getStatusCode().is2xxSuccessful())
+                        || isConfirmed(reservationId);
+            } catch (HttpServerErrorException | ResourceAccessException e) {
+                log.warn("Confirm attempt {} for reservation {} failed: {}", attempt, reservationId, e.getMessage());
+                if (attempt >= confirmMaxAttempts) {
+                    return isConfirmed(reservationId);
+                }
+            } catch (RuntimeException e) {
+                // Anything else fails the same way again, so only the double-check is left
+                log.warn("Confirm for reservation {} failed: {}", reservationId, e.getMessage());
+                return isConfirmed(reservationId);
+            }
+            try {
+                Thread.sleep(confirmBackoff.toMillis() * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return isConfirmed(reservationId);
+            }
+        }
+    }
+
+    private boolean isConfirmed(String reservationId) {
+        try {
+            StockReservationResponse reservation = productServiceClient.getReservation(reservationId);
+            return reservation != null && CONFIRMED_RESERVATION.equals(reservation.getStatus());
+        } catch (RuntimeException e) {
+            log.error("Could not look up reservation {}: {}", reservationId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Best-effort release; a failure is attached to {@code cause} when there
+     * is one so it does not hide the original error.
+     */
+    private void releaseReservation(String reservationId, RuntimeException cause) {
+        try {
+            productServiceClient.releaseReservation(reservationId);
+        } catch (RuntimeException e) {
+            if (cause != null) {
+                cause.addSuppressed(e);
+            } else {
+                log.error("Failed to release stock reservation {}: {}", reservationId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the order and its items in a single projection query, with line
+     * totals computed in SQL, so status polling never touches the entities.
+     */
     public Optional<OrderResponse> getOrder(Long orderId) {
-        return orderRepository.findById(orderId)
-                .map(this::mapToOrderResponse);
+        List<OrderLineView> lines = orderRepository.findOrderLines(orderId);
+        if (lines.isEmpty()) {
+            return Optional.empty();
+        }
+        OrderLineView header = lines.get(0);
+        List<OrderItemDTO> items = lines.stream()
+                .filter(line -> line.getItemId() != null)
+                .map(line -> new OrderItemDTO(
+                        line.getItemId(),
+                        line.getProductId(),
+                        line.getQuantity(),
+                        line.getPrice(),
+                        line.getLineTotal()
+                ))
+                .toList();
+        return Optional.of(new OrderResponse(
+                header.getOrderId(),
+                header.getTotalAmount(),
+                header.getStatus(),
+                items,
+                header.getCreatedAt()
+        ));
+    }
+
+    /**
+     * Seeks on (user_id, created_at, id) so each page costs the same no matter
+     * how deep the history is, and loads the line items for the whole page in
+     * one query instead of one lazy load per order.
+     */
+    public OrderPageResponse getOrderHistory(String userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<Order> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderRepository.findFirstPageByUserId(userId, page);
+        } else {
+            String[] position = decodeCursor(cursor);
+            orders = orderRepository.findPageByUserIdAfter(
+                    userId, LocalDateTime.parse(position[0]), Long.valueOf(position[1]), page);
+        }
+
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        if (orders.isEmpty()) {
+            return new OrderPageResponse(List.of(), null);
+        }
+
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository
+                .findByOrderIdIn(orders.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        List<OrderResponse> responses = orders.stream()
+                .map(order -> mapToOrderResponse(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList();
+        Order last = orders.get(orders.size() - 1);
+        return new OrderPageResponse(responses, hasMore ? encodeCursor(last) : null);
+    }
+
+    private String encodeCursor(Order order) {
+        String position = order.getCreatedAt() + "|" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = position.split("\\|");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return parts;
     }
 
     private List<OrderItemDTO> mapToOrderItemDTOs(List<OrderItem> items) {
@@ -97,19 +305,15 @@ public class OrderService {
     }
 
     private OrderResponse mapToOrderResponse(Order order) {
+        return mapToOrderResponse(order, order.getItems());
+    }
+
+    private OrderResponse mapToOrderResponse(Order order, List<OrderItem> items) {
         return new OrderResponse(
                 order.getId(),
                 order.getTotalAmount(),
                 order.getStatus(),
-                order.getItems().stream()
-                        .map(orderItem -> new OrderItemDTO(
-                                orderItem.getId(),
-                                orderItem.getProductId(),
-                                orderItem.getQuantity(),
-                                orderItem.getPrice(),
-                                orderItem.getPrice().multiply(new BigDecimal(orderItem.getQuantity()))
-                        ))
-                        .toList(),
+                mapToOrderItemDTOs(items),
                 order.getCreatedAt()
         );
     }
@@ -0,0 +1,206 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.dtos.ProductResponse;
+import com.ecommerce.order.dtos.StockReservationRequest;
+import com.ecommerce.order.dtos.StockReservationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingProductServiceClientTest {
+
+    private final FakeProductServiceClient delegate = new FakeProductServiceClient();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private CoalescingProductServiceClient client;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Test
+    void concurrentLookupsShareOneBatchCall() throws Exception {
+        client = newClient(Duration.ofMillis(200), 64);
+        delegate.products.put("1", product(1L));
+        delegate.products.put("2", product(2L));
+
+        List<CompletableFuture<ProductResponse>> results = lookUpConcurrently("1", "2", "1");
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS).getId()).isEqualTo(2L);
+        assertThat(results.get(2).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(delegate.batches).hasSize(1);
+        assertThat(delegate.batches.get(0)).containsExactlyInAnyOrder("1", "2");
+        assertThat(delegate.singleLookups).isEmpty();
+    }
+
+    @Test
+    void fullBatchIsSentBeforeTheWindowElapses() throws Exception {
+        client = newClient(Duration.ofMinutes(1), 2);
+        delegate.products.put("1", product(1L));
+        delegate.products.put("2", product(2L));
+
+        List<CompletableFuture<ProductResponse>> results = lookUpConcurrently("1", "2");
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS).getId()).isEqualTo(2L);
+        assertThat(delegate.batches).hasSize(1);
+    }
+
+    @Test
+    void unknownIdsResolveToNull() {
+        client = newClient(Duration.ofMillis(1), 64);
+
+        assertThat(client.getProductDetails("42")).isNull();
+    }
+
+    @Test
+    void invalidIdsNeverJoinABatch() throws Exception {
+        client = newClient(Duration.ofMillis(200), 64);
+        delegate.products.put("1", product(1L));
+
+        List<CompletableFuture<ProductResponse>> results = lookUpConcurrently("1", "abc", "");
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(results.get(2).get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(delegate.batches).hasSize(1);
+        assertThat(delegate.batches.get(0)).containsExactly("1");
+    }
+
+    @Test
+    void zeroPaddedIdsShareTheEntryOfTheirProduct() throws Exception {
+        client = newClient(Duration.ofMillis(200), 64);
+        delegate.products.put("7", product(7L));
+
+        List<CompletableFuture<ProductResponse>> results = lookUpConcurrently("007", "7");
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(7L);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS).getId()).isEqualTo(7L);
+        assertThat(delegate.batches).hasSize(1);
+        assertThat(delegate.batches.get(0)).containsExactly("7");
+    }
+
+    @Test
+    void rejectedBatchFallsBackToSingleLookups() throws Exception {
+        client = newClient(Duration.ofMillis(200), 64);
+        delegate.products.put("1", product(1L));
+        delegate.products.put("2", product(2L));
+        delegate.batchStatus = HttpStatus.UNAUTHORIZED;
+
+        List<CompletableFuture<ProductResponse>> results = lookUpConcurrently("1", "2");
+
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS).getId()).isEqualTo(2L);
+        assertThat(delegate.batches).hasSize(1);
+        assertThat(delegate.singleLookups).containsExactlyInAnyOrder("1", "2");
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        client = newClient(Duration.ofMillis(1), 64);
+        delegate.batchFailure = new IllegalStateException("product service down");
+
+        assertThatThrownBy(() -> client.getProductDetails("1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("product service down");
+    }
+
+    private CoalescingProductServiceClient newClient(Duration window, int maxBatchSize) {
+        return new CoalescingProductServiceClient(delegate, window, maxBatchSize, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Starts one lookup per id and waits until all of them are inside the
+     * client, so they land in the same batch while the window is open.
+     */
+    private List<CompletableFuture<ProductResponse>> lookUpConcurrently(String... ids) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(ids.length);
+        List<CompletableFuture<ProductResponse>> results = new ArrayList<>();
+        for (String id : ids) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                return client.getProductDetails(id);
+            }, callers));
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return results;
+    }
+
+    private static ProductResponse product(Long id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName("Product " + id);
+        return product;
+    }
+
+    private static class FakeProductServiceClient implements ProductServiceClient {
+        private final Map<String, ProductResponse> products = new ConcurrentHashMap<>();
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> singleLookups = new CopyOnWriteArrayList<>();
+        private volatile HttpStatus batchStatus = HttpStatus.OK;
+        private volatile RuntimeException batchFailure;
+
+        @Override
+        public ProductResponse getProductDetails(String id) {
+            singleLookups.add(id);
+            return products.get(id);
+        }
+
+        @Override
+        public ResponseEntity<List<ProductResponse>> getProductsBatch(Collection<String> ids) {
+            batches.add(List.copyOf(ids));
+            if (batchFailure != null) {
+                throw batchFailure;
+            }
+            if (batchStatus.is4xxClientError()) {
+                return ResponseEntity.status(batchStatus).build();
+            }
+            return ResponseEntity.ok(ids.stream()
+                    .map(products::get)
+                    .filter(product -> product != null)
+                    .toList());
+        }
+
+        @Override
+        public StockReservationResponse reserveStock(StockReservationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StockReservationResponse getReservation(String reservationId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResponseEntity<Void> confirmReservation(String reservationId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void releaseReservation(String reservationId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.dtos.OrderLineView;
+import com.ecommerce.order.models.Order;
+import com.ecommerce.order.models.OrderItem;
+import com.ecommerce.order.models.OrderStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against an in-memory H2 database with Hibernate statistics on, so
+ * the number of statements behind a lookup can be asserted.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ContextConfiguration(classes = OrderRepositoryTest.JpaConfig.class)
+class OrderRepositoryTest {
+
+    // Only the JPA slice; the application class also pulls in Kafka, Feign and the replica
+    @SpringBootConfiguration
+    @AutoConfigurationPackage(basePackages = "com.ecommerce.order")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void orderLinesLoadInOneStatement() {
+        Long orderId = persistOrder(3);
+        statistics.clear();
+
+        List<OrderLineView> lines = orderRepository.findOrderLines(orderId);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines).extracting(OrderLineView::getOrderId).containsOnly(orderId);
+        assertThat(lines.get(0).getLineTotal()).isEqualByComparingTo("4.00");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void orderWithoutItemsStillReturnsItsHeader() {
+        Long orderId = persistOrder(0);
+        statistics.clear();
+
+        List<OrderLineView> lines = orderRepository.findOrderLines(orderId);
+
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0).getItemId()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownOrderHasNoLines() {
+        assertThat(orderRepository.findOrderLines(-1L)).isEmpty();
+    }
+
+    private Long persistOrder(int itemCount) {
+        Order order = new Order();
+        order.setUserId("user-1");
+        order.setTotalAmount(new BigDecimal("10.00"));
+        order.setStatus(OrderStatus.CONFIRMED);
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductId(String.valueOf(100 + i));
+            item.setQuantity(2);
+            item.setPrice(new BigDecimal("2.00"));
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+        Long orderId = entityManager.persistAndFlush(order).getId();
+        entityManager.clear();
+        return orderId;
+    }
+}
@@ -0,0 +1,247 @@
+package com.ecommerce.order.repositories;
+
+import com.ecommerce.order.models.CartItem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCartStoreTest {
+    private static final Duration IDLE_TTL = Duration.ofHours(1);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void addItemCreatesLineAndAddsToItsQuantity() {
+        RedisCartStore store = newStore(false);
+
+        store.addItem("u1", "10", 2, new BigDecimal("5.00"));
+        store.addItem("u1", "10", 3, new BigDecimal("4.50"));
+        store.addItem("u1", "11", 1, new BigDecimal("1.00"));
+
+        List<CartItem> items = store.getItems("u1");
+        assertThat(items).extracting(CartItem::getProductId).containsExactly("10", "11");
+        assertThat(items.get(0).getQuantity()).isEqualTo(5);
+        assertThat(items.get(0).getPrice()).isEqualByComparingTo("4.50");
+        assertThat(items.get(1).getQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    void addItemKeepsFirstAddedAt() throws InterruptedException {
+        RedisCartStore store = newStore(false);
+
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+        LocalDateTime addedAt = store.getItems("u1").get(0).getCreatedAt();
+        Thread.sleep(5);
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+
+        assertThat(store.getItems("u1").get(0).getCreatedAt()).isEqualTo(addedAt);
+    }
+
+    @Test
+    void everyAddRenewsTheIdleTtl() {
+        RedisCartStore store = newStore(false);
+
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+        redisTemplate.expire("cart:u1", Duration.ofSeconds(10));
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+
+        Long ttlSeconds = redisTemplate.getExpire("cart:u1");
+        assertThat(ttlSeconds).isGreaterThan(IDLE_TTL.minusMinutes(1).toSeconds())
+                .isLessThanOrEqualTo(IDLE_TTL.toSeconds());
+    }
+
+    @Test
+    void removingTheLastLineEmptiesTheCart() {
+        RedisCartStore store = newStore(false);
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+
+        assertThat(store.removeItem("u1", "10")).isTrue();
+        assertThat(store.removeItem("u1", "10")).isFalse();
+        assertThat(store.hasItems("u1")).isFalse();
+    }
+
+    @Test
+    void clearWaitsForTheTransactionToCommit() {
+        RedisCartStore store = newStore(false);
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        store.clear("u1");
+        assertThat(store.hasItems("u1")).isTrue();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(store.hasItems("u1")).isFalse();
+    }
+
+    @Test
+    void clearKeepsTheCartWhenTheTransactionRollsBack() {
+        RedisCartStore store = newStore(false);
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        store.clear("u1");
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(store.hasItems("u1")).isTrue();
+    }
+
+    @Test
+    void clearWithoutTransactionDeletesImmediately() {
+        RedisCartStore store = newStore(false);
+        store.addItem("u1", "10", 1, BigDecimal.ONE);
+
+        store.clear("u1");
+
+        assertThat(store.hasItems("u1")).isFalse();
+    }
+
+    @Test
+    void legacyCartIsMigratedOnFirstAccess() {
+        when(cartItemRepository.findByUserId("u1")).thenReturn(List.of(legacyItem("u1", "10", 2)));
+        RedisCartStore store = newStore(true);
+
+        List<CartItem> items = store.getItems("u1");
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getQuantity()).isEqualTo(2);
+        assertThat(items.get(0).getPrice()).isEqualByComparingTo("3.00");
+        assertThat(redisTemplate.getExpire("cart:u1")).isPositive();
+        verify(cartItemRepository).deleteByUserId("u1");
+    }
+
+    @Test
+    void addDuringMigrationKeepsLegacyQuantity() {
+        AtomicBoolean raced = new AtomicBoolean();
+        RedisCartStore otherInstance = newStore(true);
+        // Another instance adds to the cart while this one is loading the legacy rows
+        when(cartItemRepository.findByUserId("u1")).thenAnswer(invocation -> {
+            if (raced.compareAndSet(false, true)) {
+                otherInstance.addItem("u1", "10", 1, new BigDecimal("3.00"));
+            }
+            return List.of(legacyItem("u1", "10", 2));
+        });
+        RedisCartStore store = newStore(true);
+
+        store.addItem("u1", "10", 4, new BigDecimal("3.00"));
+
+        List<CartItem> items = store.getItems("u1");
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void concurrentAddsDuringMigrationAreAllCounted() throws Exception {
+        when(cartItemRepository.findByUserId("u1")).thenReturn(List.of(legacyItem("u1", "10", 2)));
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                RedisCartStore store = newStore(true);
+                adds.add(executor.submit(() -> {
+                    start.await();
+                    store.addItem("u1", "10", 1, new BigDecimal("3.00"));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> add : adds) {
+                add.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(newStore(true).getItems("u1").get(0).getQuantity()).isEqualTo(2 + threads);
+    }
+
+    @Test
+    void migrationIsSkippedWhenDisabled() {
+        RedisCartStore store = newStore(false);
+
+        assertThat(store.getItems("u1")).isEmpty();
+
+        verify(cartItemRepository, never()).findByUserId(anyString());
+    }
+
+    private RedisCartStore newStore(boolean migrateFromJpa) {
+        return new RedisCartStore(redisTemplate, cartItemRepository, IDLE_TTL, migrateFromJpa);
+    }
+
+    private static CartItem legacyItem(String userId, String productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setUserId(userId);
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal("3.00"));
+        item.setCreatedAt(LocalDateTime.now().minusDays(1));
+        return item;
+    }
+}
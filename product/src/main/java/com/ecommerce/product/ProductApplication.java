@@ -1,13 +1,20 @@
 package com.ecommerce.product;
 
+import com.ecommerce.shared.outbox.OutboxConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
+@RemoteApplicationEventScan(basePackages = "com.ecommerce.product.services")
+@Import(OutboxConfig.class)
 public class ProductApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.ecommerce.product.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic productUpdatedTopic(@Value("${app.product-events.topic:product-updated}") String topic,
+                                        @Value("${app.product-events.partitions:6}") int partitions) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .compact()
+                .build();
+    }
+}
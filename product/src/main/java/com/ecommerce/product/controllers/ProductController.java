@@ -1,16 +1,31 @@
 package com.ecommerce.product.controllers;
 
+import com.ecommerce.product.dtos.ProductFacetResponse;
+import com.ecommerce.product.dtos.ProductPageResponse;
 import com.ecommerce.product.dtos.ProductRequest;
 import com.ecommerce.product.dtos.ProductResponse;
+import com.ecommerce.product.search.ProductFacetIndex;
+import com.ecommerce.product.services.ProductImportService;
+import com.ecommerce.product.search.ProductSuggestionIndex;
 import com.ecommerce.product.services.ProductService;
+import com.ecommerce.shared.imports.ImportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,7 +33,14 @@ import java.util.List;
 @Slf4j
 public class ProductController {
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 10;
+
     private final ProductService productService;
+    private final ProductSuggestionIndex suggestionIndex;
+    private final ProductImportService productImportService;
 
     @GetMapping("/simulate")
     public ResponseEntity<String> simulateFailure(
@@ -41,17 +63,131 @@ public class ProductController {
         }
     }
 
+    /**
+     * Streams CSV (with a header row) or NDJSON products from the request
+     * body and answers with NDJSON row errors, progress and a summary.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try {
+            ImportFormat format = ImportFormat.fromContentType(contentType);
+            log.info("Importing products from {}", format);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> productImportService.importProducts(body, format, out));
+        } catch (Exception e) {
+            log.error("Error importing products: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Without paging parameters the whole catalog is returned, as it always
+     * was; it is streamed, so its size does not bound memory.
+     */
+    @GetMapping(params = {"!page", "!size", "!cursor", "!stream", "!ids"})
+    public ResponseEntity<StreamingResponseBody> getAllProducts(WebRequest request) {
+        return streamProducts(request);
+    }
+
+    /**
+     * Pages through active products ordered by id. Offset paging via
+     * {@code page} also reports the total; passing the {@code X-Next-Cursor}
+     * value back as {@code cursor} continues by keyset without counting.
+     */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getProducts() {
+    public ResponseEntity<List<ProductResponse>> getProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
         try {
-            log.info("Fetching all products");
-            return ResponseEntity.ok(productService.getAllProducts());
+            log.info("Fetching products page {} size {} cursor {}", page, size, cursor);
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (isNotModified(request)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            ProductPageResponse results = cursor == null || cursor.isBlank()
+                    ? productService.getProductsPage(page, size)
+                    : productService.getProductsAfter(cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (results.getTotalElements() != null) {
+                response.header(TOTAL_COUNT_HEADER, String.valueOf(results.getTotalElements()));
+            }
+            if (results.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, results.getNextCursor());
+            }
+            return response.body(results.getProducts());
         } catch (Exception e) {
             log.error("Error fetching products: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamProducts(WebRequest request) {
+        try {
+            log.info("Streaming all products");
+            if (isNotModified(request)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(productService::writeActiveProducts);
+        } catch (Exception e) {
+            log.error("Error streaming products: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<String> ids) {
+        try {
+            log.info("Fetching {} products by id", ids.size());
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (Exception e) {
+            log.error("Error fetching products {}: {}", ids, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<ProductFacetResponse> filterProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "ID") ProductFacetIndex.SortOrder sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            log.info("Filtering products by category {} price {}-{} inStock {}", category, minPrice, maxPrice, inStock);
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(productService.filterProducts(new ProductFacetIndex.FacetQuery(
+                    category, minPrice, maxPrice, inStock, sort, page, size)));
+        } catch (Exception e) {
+            log.error("Error filtering products: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionIndex.Suggestion>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (prefix.isBlank() || limit < 1 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(suggestionIndex.suggest(prefix, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(
                                     @PathVariable String id) {
@@ -94,13 +230,36 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword) {
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
             log.info("Searching products with keyword: {}", keyword);
-            return ResponseEntity.ok(productService.searchProducts(keyword));
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            Page<ProductResponse> results = productService.searchProducts(keyword, page, size);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(results.getTotalElements()))
+                    .body(results.getContent());
         } catch (Exception e) {
             log.error("Error searching products with keyword {}: {}", keyword, e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Evaluates If-None-Match / If-Modified-Since against the catalog-wide
+     * version; also sets ETag and Last-Modified on the response.
+     */
+    private boolean isNotModified(WebRequest request) {
+        Optional<Instant> lastModified = productService.getCatalogLastModified();
+        if (lastModified.isEmpty()) {
+            return false;
+        }
+        Instant version = lastModified.get();
+        String etag = "W/\"" + version.getEpochSecond() + "." + version.getNano() + "\"";
+        return request.checkNotModified(etag, version.toEpochMilli());
+    }
 }
@@ -0,0 +1,69 @@
+package com.ecommerce.product.controllers;
+
+import com.ecommerce.product.dtos.StockReservationRequest;
+import com.ecommerce.product.dtos.StockReservationResponse;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.services.StockReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/products/reservations")
+@Slf4j
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+
+    @PostMapping
+    public ResponseEntity<StockReservationResponse> reserve(
+            @Valid @RequestBody StockReservationRequest request) {
+        try {
+            log.info("Reserving stock for {} items", request.getItems().size());
+            return new ResponseEntity<>(reservationService.reserve(request), HttpStatus.CREATED);
+        } catch (InsufficientStockException e) {
+            log.info("Reservation rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error reserving stock: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{reservationId}")
+    public ResponseEntity<StockReservationResponse> getReservation(@PathVariable String reservationId) {
+        return reservationService.getReservation(reservationId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<Void> confirm(@PathVariable String reservationId) {
+        try {
+            log.info("Confirming reservation {}", reservationId);
+            return reservationService.confirm(reservationId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error confirming reservation {}: {}", reservationId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<Void> release(@PathVariable String reservationId) {
+        try {
+            log.info("Releasing reservation {}", reservationId);
+            return reservationService.release(reservationId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error releasing reservation {}: {}", reservationId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
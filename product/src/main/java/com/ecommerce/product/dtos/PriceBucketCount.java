@@ -0,0 +1,16 @@
+package com.ecommerce.product.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class PriceBucketCount {
+    private BigDecimal min;
+
+    private BigDecimal max;
+
+    private Long count;
+}
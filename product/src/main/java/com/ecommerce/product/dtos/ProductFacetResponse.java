@@ -0,0 +1,19 @@
+package com.ecommerce.product.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ProductFacetResponse {
+    private List<ProductResponse> products;
+
+    private Long totalElements;
+
+    private Map<String, Long> categories;
+
+    private List<PriceBucketCount> priceBuckets;
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.product.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON import response: a rejected row ({@code error}),
+ * a batch checkpoint ({@code progress}) or the final {@code summary}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportEvent {
+    private String type;
+
+    private Long line;
+
+    private String message;
+
+    private Long processed;
+
+    private Long imported;
+
+    private Long failed;
+}
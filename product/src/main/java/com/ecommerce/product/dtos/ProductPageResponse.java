@@ -0,0 +1,16 @@
+package com.ecommerce.product.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> products;
+
+    private Long totalElements;
+
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.product.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductUpdatedEvent {
+    private Long id;
+
+    private BigDecimal price;
+
+    private Integer stockQuantity;
+
+    private Boolean active;
+
+    private Long version;
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.product.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockReservationRequest {
+    @Valid
+    @NotEmpty(message = "At least one item is required")
+    private List<ReservationItemRequest> items;
+}
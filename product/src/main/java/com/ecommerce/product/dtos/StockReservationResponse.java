@@ -0,0 +1,20 @@
+package com.ecommerce.product.dtos;
+
+import com.ecommerce.product.models.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class StockReservationResponse {
+    private String reservationId;
+
+    private ReservationStatus status;
+
+    private List<ReservationItemRequest> items;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.product.models;
+
+public enum ReservationStatus {
+    ACTIVE, CONFIRMED, RELEASED
+}
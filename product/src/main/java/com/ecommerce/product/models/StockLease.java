@@ -0,0 +1,41 @@
+package com.ecommerce.product.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock one product-service instance has moved from the products row into
+ * its in-memory hot-stock pool. {@code quantity} is granted minus returned;
+ * units the instance consumed are the reservation lines tagged with its
+ * {@code owner}, so what it still holds can be recovered if it dies.
+ */
+@Entity
+@Table(name = "stock_leases", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_leases_product_owner", columnNames = {"product_id", "owner"})
+}, indexes = {
+        @Index(name = "idx_stock_leases_heartbeat_at", columnList = "heartbeat_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.product.repositories;
+
+import com.ecommerce.product.models.StockLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockLeaseRepository extends JpaRepository<StockLease, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO stock_leases (product_id, owner, quantity, heartbeat_at) "
+            + "VALUES (:productId, :owner, :quantity, now()) "
+            + "ON CONFLICT (product_id, owner) DO UPDATE "
+            + "SET quantity = stock_leases.quantity + excluded.quantity, heartbeat_at = now()",
+            nativeQuery = true)
+    int addToLease(@Param("productId") Long productId,
+                   @Param("owner") String owner,
+                   @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE StockLease l SET l.heartbeatAt = CURRENT_TIMESTAMP WHERE l.owner = :owner")
+    int heartbeat(@Param("owner") String owner);
+
+    /**
+     * Units per product that instances still hold in their pools: granted
+     * minus what reservation lines tagged with the lease owner consumed.
+     */
+    @Query(value = "SELECT l.product_id AS productId, SUM(l.quantity - COALESCE((SELECT SUM(r.quantity) "
+            + "FROM stock_reservations r WHERE r.product_id = l.product_id AND r.lease_owner = l.owner), 0)) AS units "
+            + "FROM stock_leases l WHERE l.product_id IN (:productIds) GROUP BY l.product_id",
+            nativeQuery = true)
+    List<StockReservationRepository.ProductUnits> sumHeldByProduct(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Claims leases whose owner stopped heartbeating. SKIP LOCKED lets
+     * several instances sweep without returning the same lease twice.
+     */
+    @Query(value = "SELECT * FROM stock_leases WHERE heartbeat_at < :cutoff ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<StockLease> lockStale(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
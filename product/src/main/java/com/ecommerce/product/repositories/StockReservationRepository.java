@@ -0,0 +1,51 @@
+package com.ecommerce.product.repositories;
+
+import com.ecommerce.product.models.ReservationStatus;
+import com.ecommerce.product.models.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    interface ProductUnits {
+        Long getProductId();
+
+        Long getUnits();
+    }
+
+    List<StockReservation> findByReservationId(String reservationId);
+
+    long countByReservationId(String reservationId);
+
+    List<StockReservation> findByReservationIdAndStatus(String reservationId, ReservationStatus status);
+
+    @Query("SELECT r FROM StockReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("status") ReservationStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.reservationId = :reservationId AND r.status = :from")
+    int transitionAll(@Param("reservationId") String reservationId,
+                      @Param("from") ReservationStatus from,
+                      @Param("to") ReservationStatus to);
+
+    @Query("SELECT r.productId AS productId, SUM(r.quantity) AS units FROM StockReservation r WHERE r.status = :status GROUP BY r.productId")
+    List<ProductUnits> sumQuantityByProduct(@Param("status") ReservationStatus status);
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r WHERE r.productId = :productId AND r.leaseOwner = :owner")
+    long sumQuantityByLeaseOwner(@Param("productId") Long productId, @Param("owner") String owner);
+}
@@ -0,0 +1,246 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.services.ProductChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitset-per-facet-value index over active products. Each product gets a
+ * dense slot; category, price bucket and in-stock membership are bits at
+ * that slot, so filtering is bitset intersection and a facet count is the
+ * cardinality of an intersection. Counts for a facet ignore that facet's
+ * own filter, so the client can show alternatives to the current choice.
+ * Writes on other instances reach it through ProductChangePublisher's bus
+ * feed, so stock and category membership agree across instances.
+ */
+@Component
+public class ProductFacetIndex implements ProductChangeListener {
+
+    public enum SortOrder {
+        ID, PRICE_ASC, PRICE_DESC, NAME, NEWEST
+    }
+
+    public record FacetQuery(String category, BigDecimal minPrice, BigDecimal maxPrice,
+                             boolean inStockOnly, SortOrder sort, int page, int size) {
+    }
+
+    public record PriceBucket(BigDecimal min, BigDecimal max, long count) {
+    }
+
+    public record FacetResult(long total, List<Long> productIds,
+                              Map<String, Long> categoryCounts, List<PriceBucket> priceBuckets) {
+    }
+
+    private record Entry(Long productId, String name, String category, BigDecimal price,
+                         int priceBucket, LocalDateTime createdAt) {
+    }
+
+    private final List<BigDecimal> priceBoundaries;
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<String, BitSet> categories = new TreeMap<>();
+    private final List<BitSet> priceBuckets = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductFacetIndex(
+            @Value("${app.facets.price-boundaries:25,50,100,250,500,1000}") List<BigDecimal> priceBoundaries) {
+        this.priceBoundaries = priceBoundaries.stream().sorted().toList();
+        for (int i = 0; i <= this.priceBoundaries.size(); i++) {
+            priceBuckets.add(new BitSet());
+        }
+    }
+
+    @Override
+    public void onProductChanged(Product product) {
+        index(product);
+    }
+
+    @Override
+    public boolean replayOnStartup() {
+        return true;
+    }
+
+    /**
+     * Adds or replaces a product. Inactive products are removed instead.
+     */
+    public void index(Product product) {
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            remove(product.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getId());
+            int slot = freeSlots.isEmpty() ? entries.size() : freeSlots.pop();
+            Entry entry = new Entry(product.getId(), product.getName(), product.getCategory(),
+                    product.getPrice(), bucketOf(product.getPrice()), product.getCreatedAt());
+            if (slot == entries.size()) {
+                entries.add(entry);
+            } else {
+                entries.set(slot, entry);
+            }
+            slots.put(product.getId(), slot);
+            live.set(slot);
+            if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
+                inStock.set(slot);
+            }
+            categories.computeIfAbsent(entry.category(), c -> new BitSet()).set(slot);
+            priceBuckets.get(entry.priceBucket()).set(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetResult filter(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet categoryFilter = query.category() == null ? null
+                    : categories.getOrDefault(query.category(), new BitSet());
+            BitSet stockFilter = query.inStockOnly() ? inStock : null;
+            BitSet priceFilter = query.minPrice() == null && query.maxPrice() == null ? null
+                    : priceRange(query.minPrice(), query.maxPrice());
+
+            Map<String, Long> categoryCounts = new TreeMap<>();
+            BitSet withoutCategory = intersect(stockFilter, priceFilter);
+            categories.forEach((category, members) -> {
+                long count = intersectionCount(withoutCategory, members);
+                if (count > 0) {
+                    categoryCounts.put(category, count);
+                }
+            });
+
+            List<PriceBucket> bucketCounts = new ArrayList<>();
+            BitSet withoutPrice = intersect(categoryFilter, stockFilter);
+            for (int i = 0; i < priceBuckets.size(); i++) {
+                bucketCounts.add(new PriceBucket(
+                        i == 0 ? BigDecimal.ZERO : priceBoundaries.get(i - 1),
+                        i < priceBoundaries.size() ? priceBoundaries.get(i) : null,
+                        intersectionCount(withoutPrice, priceBuckets.get(i))));
+            }
+
+            BitSet matches = intersect(categoryFilter, stockFilter, priceFilter);
+            List<Entry> matched = new ArrayList<>(matches.cardinality());
+            matches.stream().forEach(slot -> matched.add(entries.get(slot)));
+            matched.sort(comparator(query.sort()));
+            int from = Math.min(query.page() * query.size(), matched.size());
+            int to = Math.min(from + query.size(), matched.size());
+            return new FacetResult(matched.size(),
+                    matched.subList(from, to).stream().map(Entry::productId).toList(),
+                    categoryCounts,
+                    bucketCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whole buckets inside the range are OR-ed in directly; only the
+     * buckets straddling a bound are checked price by price.
+     */
+    private BitSet priceRange(BigDecimal min, BigDecimal max) {
+        BitSet result = new BitSet();
+        for (int i = 0; i < priceBuckets.size(); i++) {
+            BigDecimal bucketMin = i == 0 ? null : priceBoundaries.get(i - 1);
+            BigDecimal bucketMax = i < priceBoundaries.size() ? priceBoundaries.get(i) : null;
+            boolean belowMin = min != null && bucketMax != null && bucketMax.compareTo(min) <= 0;
+            boolean aboveMax = max != null && bucketMin != null && bucketMin.compareTo(max) > 0;
+            if (belowMin || aboveMax) {
+                continue;
+            }
+            boolean coversMin = min == null || (bucketMin != null && bucketMin.compareTo(min) >= 0);
+            boolean coversMax = max == null || (bucketMax != null && bucketMax.compareTo(max) <= 0);
+            if (coversMin && coversMax) {
+                result.or(priceBuckets.get(i));
+            } else {
+                priceBuckets.get(i).stream().forEach(slot -> {
+                    BigDecimal price = entries.get(slot).price();
+                    if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                        result.set(slot);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static long intersectionCount(BitSet base, BitSet members) {
+        BitSet intersection = (BitSet) members.clone();
+        intersection.and(base);
+        return intersection.cardinality();
+    }
+
+    private static Comparator<Entry> comparator(SortOrder sort) {
+        Comparator<Entry> byId = Comparator.comparing(Entry::productId);
+        return switch (sort) {
+            case PRICE_ASC -> Comparator.comparing(Entry::price).thenComparing(byId);
+            case PRICE_DESC -> Comparator.comparing(Entry::price).reversed().thenComparing(byId);
+            case NAME -> Comparator.comparing(Entry::name, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            case NEWEST -> Comparator.comparing(Entry::createdAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(byId);
+            case ID -> byId;
+        };
+    }
+
+    private int bucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBoundaries.size() && price.compareTo(priceBoundaries.get(bucket)) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private void removeUnlocked(Long productId) {
+        Integer slot = slots.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        Entry entry = entries.get(slot);
+        live.clear(slot);
+        inStock.clear(slot);
+        BitSet members = categories.get(entry.category());
+        members.clear(slot);
+        if (members.isEmpty()) {
+            categories.remove(entry.category());
+        }
+        priceBuckets.get(entry.priceBucket()).clear(slot);
+        entries.set(slot, null);
+        freeSlots.push(slot);
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.services.ProductChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over active products, ranked with BM25.
+ * Name, category and description are indexed as one field with term
+ * frequencies weighted per source field, so a hit in the name outranks
+ * the same hit in the description.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements ProductChangeListener {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** term -> (product id -> weighted term frequency) */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Integer> docLengths = new HashMap<>();
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private long totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record SearchHits(long total, List<Long> productIds) {
+    }
+
+    @Override
+    public void onProductChanged(Product product) {
+        index(product);
+    }
+
+    @Override
+    public boolean replayOnStartup() {
+        return true;
+    }
+
+    /**
+     * Adds or replaces a product. Inactive products are removed instead.
+     */
+    public void index(Product product) {
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            remove(product.getId());
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        addField(frequencies, product.getName(), NAME_WEIGHT);
+        addField(frequencies, product.getCategory(), CATEGORY_WEIGHT);
+        addField(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getId());
+            frequencies.forEach((term, tf) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), tf));
+            docTerms.put(product.getId(), frequencies.keySet());
+            docLengths.put(product.getId(), length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docLengths.clear();
+            docTerms.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks every product matching at least one query term and returns the
+     * requested page of ids, best match first.
+     */
+    public SearchHits search(String query, int page, int size) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+        if (queryTerms.isEmpty()) {
+            return new SearchHits(0, List.of());
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = docLengths.size();
+            if (documentCount == 0) {
+                return new SearchHits(0, List.of());
+            }
+            double averageLength = (double) totalLength / documentCount;
+            for (String term : queryTerms) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int df = termPostings.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                termPostings.forEach((productId, tf) -> {
+                    double norm = K1 * (1 - B + B * docLengths.get(productId) / averageLength);
+                    scores.merge(productId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        int from = Math.min(page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        return new SearchHits(ranked.size(), ranked.subList(from, to).stream()
+                .map(Map.Entry::getKey)
+                .toList());
+    }
+
+    private void removeUnlocked(Long productId) {
+        Set<String> terms = docTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= docLengths.remove(productId);
+    }
+
+    private static void addField(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : TextAnalyzer.analyze(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.models.ReservationStatus;
+import com.ecommerce.product.repositories.StockReservationRepository;
+import com.ecommerce.product.services.ProductChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie over active product names for autocomplete. Every word
+ * position of a name is a key, so "apple iphone case" is found from "iph"
+ * as well as "app". Each node caches the top-K products of its subtree by
+ * popularity (confirmed units sold), so a lookup is a walk down the prefix
+ * with no sorting. Writes recompute only the nodes on the affected paths.
+ * Product writes and confirmed sales from every instance reach it over the
+ * cloud bus, so suggestions agree across instances.
+ */
+@Component
+@Slf4j
+public class ProductSuggestionIndex implements ProductChangeListener {
+
+    private static final int MAX_KEYS_PER_PRODUCT = 8;
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong(Suggestion::popularity).reversed()
+            .thenComparing(Suggestion::name)
+            .thenComparing(Suggestion::productId);
+
+    private final StockReservationRepository reservationRepository;
+    private final int topK;
+    private final Node root = new Node("");
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private final Map<Long, Long> popularity = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record Suggestion(Long productId, String name, long popularity) {
+    }
+
+    private record IndexedProduct(String name, Set<String> keys) {
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Long> productIds = new HashSet<>();
+        private List<Suggestion> top = List.of();
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    public ProductSuggestionIndex(StockReservationRepository reservationRepository,
+                                  @Value("${app.suggest.top-k:10}") int topK) {
+        this.reservationRepository = reservationRepository;
+        this.topK = topK;
+    }
+
+    @Override
+    public void onProductChanged(Product product) {
+        index(product);
+    }
+
+    @Override
+    public boolean replayOnStartup() {
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPopularity() {
+        List<StockReservationRepository.ProductUnits> sales =
+                reservationRepository.sumQuantityByProduct(ReservationStatus.CONFIRMED);
+        sales.forEach(row -> addPopularity(row.getProductId(), row.getUnits()));
+        log.info("Loaded popularity for {} products into the suggestion index", sales.size());
+    }
+
+    /**
+     * Adds or replaces a product. Inactive products are removed instead.
+     */
+    public void index(Product product) {
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            remove(product.getId());
+            return;
+        }
+        String name = product.getName() == null ? "" : product.getName().strip();
+        Set<String> keys = keysFor(name);
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getId());
+            if (keys.isEmpty()) {
+                return;
+            }
+            products.put(product.getId(), new IndexedProduct(name, keys));
+            for (String key : keys) {
+                List<Node> path = pathTo(key);
+                path.get(path.size() - 1).productIds.add(product.getId());
+                recompute(path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Raises a product's popularity, reordering it in every node on its
+     * paths. Popularity is kept for products not yet indexed.
+     */
+    public void addPopularity(Long productId, long units) {
+        lock.writeLock().lock();
+        try {
+            popularity.merge(productId, units, Long::sum);
+            IndexedProduct indexed = products.get(productId);
+            if (indexed != null) {
+                for (String key : indexed.keys()) {
+                    List<Node> path = find(key);
+                    if (path != null) {
+                        recompute(path);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.children.get(key.charAt(position));
+                if (child == null) {
+                    return List.of();
+                }
+                int remaining = key.length() - position;
+                if (remaining <= child.label.length()) {
+                    if (!child.label.startsWith(key.substring(position))) {
+                        return List.of();
+                    }
+                    return truncate(child.top, limit);
+                }
+                if (!key.startsWith(child.label, position)) {
+                    return List.of();
+                }
+                position += child.label.length();
+                node = child;
+            }
+            return truncate(node.top, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(Long productId) {
+        IndexedProduct indexed = products.remove(productId);
+        if (indexed == null) {
+            return;
+        }
+        for (String key : indexed.keys()) {
+            List<Node> path = find(key);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).productIds.remove(productId);
+            recomputeAndPrune(path);
+        }
+    }
+
+    /**
+     * Walks to the node for {@code key}, splitting edges and adding nodes
+     * as needed. Returns the nodes from the root down.
+     */
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            char first = key.charAt(position);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.children.put(first, child);
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                split.top = child.top;
+                node.children.put(first, split);
+                child = split;
+            }
+            position += common;
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.children.get(key.charAt(position));
+            if (child == null || !key.startsWith(child.label, position)) {
+                return null;
+            }
+            position += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recompute(path.get(i));
+        }
+    }
+
+    /**
+     * Recomputes bottom-up, dropping nodes left empty and merging nodes
+     * that only pass through to a single child, so the trie stays compact.
+     */
+    private void recomputeAndPrune(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Node parent = i > 0 ? path.get(i - 1) : null;
+            if (parent != null && node.productIds.isEmpty()) {
+                if (node.children.isEmpty()) {
+                    parent.children.remove(node.label.charAt(0));
+                    continue;
+                }
+                if (node.children.size() == 1) {
+                    Node child = node.children.values().iterator().next();
+                    child.label = node.label + child.label;
+                    parent.children.put(child.label.charAt(0), child);
+                    continue;
+                }
+            }
+            recompute(node);
+        }
+    }
+
+    private void recompute(Node node) {
+        Map<Long, Suggestion> candidates = new LinkedHashMap<>();
+        for (Long productId : node.productIds) {
+            IndexedProduct indexed = products.get(productId);
+            if (indexed != null) {
+                candidates.put(productId, new Suggestion(
+                        productId, indexed.name(), popularity.getOrDefault(productId, 0L)));
+            }
+        }
+        for (Node child : node.children.values()) {
+            for (Suggestion suggestion : child.top) {
+                candidates.putIfAbsent(suggestion.productId(), suggestion);
+            }
+        }
+        node.top = candidates.values().stream()
+                .sorted(RANKING)
+                .limit(topK)
+                .toList();
+    }
+
+    private static List<Suggestion> truncate(List<Suggestion> suggestions, int limit) {
+        return suggestions.size() <= limit ? suggestions : suggestions.subList(0, limit);
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Set<String> keysFor(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new HashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        int start = normalized.indexOf(' ');
+        while (start >= 0 && keys.size() < MAX_KEYS_PER_PRODUCT) {
+            keys.add(normalized.substring(start + 1));
+            start = normalized.indexOf(' ', start + 1);
+        }
+        return keys;
+    }
+
+    /**
+     * Lower-cases and collapses runs of non-alphanumerics to one space.
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+}
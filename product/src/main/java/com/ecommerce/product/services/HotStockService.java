@@ -0,0 +1,301 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.StockLease;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.repositories.StockLeaseRepository;
+import com.ecommerce.product.repositories.StockReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hot-item inventory for products listed in {@code app.hot-stock.product-ids}.
+ * Each instance leases stock from the products row in chunks and spreads it
+ * over N in-memory shards, so reservations take units with a CAS on one
+ * shard instead of queueing on the row lock. Units only leave the row
+ * through a conditional decrement, so instances can never sell more than
+ * the row held. A reconciler heartbeats the leases and hands surplus back;
+ * leases of instances that stop heartbeating are returned by a sweeper.
+ */
+@Service
+@Slf4j
+public class HotStockService {
+
+    private final ProductRepository productRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final StockReservationRepository reservationRepository;
+    private final ProductChangePublisher changePublisher;
+    private final TransactionTemplate leaseTransaction;
+    private final TransactionTemplate sweepTransaction;
+    private final Set<Long> hotProductIds;
+    private final int shardCount;
+    private final int leaseSize;
+    private final Duration staleAfter;
+    private final String applicationName;
+    private volatile Pool pool;
+    private volatile long lastHeartbeatNanos = System.nanoTime();
+
+    public HotStockService(ProductRepository productRepository,
+                           StockLeaseRepository leaseRepository,
+                           StockReservationRepository reservationRepository,
+                           ProductChangePublisher changePublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${spring.application.name}") String applicationName,
+                           @Value("${app.hot-stock.product-ids:}") List<Long> hotProductIds,
+                           @Value("${app.hot-stock.shards:8}") int shardCount,
+                           @Value("${app.hot-stock.lease-size:50}") int leaseSize,
+                           @Value("${app.hot-stock.stale-after:2m}") Duration staleAfter) {
+        this.productRepository = productRepository;
+        this.leaseRepository = leaseRepository;
+        this.reservationRepository = reservationRepository;
+        this.changePublisher = changePublisher;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sweepTransaction = new TransactionTemplate(transactionManager);
+        this.hotProductIds = Set.copyOf(hotProductIds);
+        this.shardCount = shardCount;
+        this.leaseSize = leaseSize;
+        this.staleAfter = staleAfter;
+        this.applicationName = applicationName;
+        this.pool = newPool();
+    }
+
+    public boolean isHot(Long productId) {
+        return hotProductIds.contains(productId);
+    }
+
+    /**
+     * Takes units from the local pool, leasing more from the row when it
+     * runs dry, and returns the lease owner to record on the reservation
+     * line. Inside a transaction the units go back to the pool if it rolls
+     * back.
+     */
+    public Optional<String> tryTake(Long productId, int quantity) {
+        if (isFenced()) {
+            log.warn("Hot stock lease heartbeat is stale, refusing pooled stock for product {}", productId);
+            return Optional.empty();
+        }
+        Pool current = pool;
+        Counter counter = current.counters().computeIfAbsent(productId, id -> new Counter(shardCount));
+        if (!counter.tryTake(quantity) && !leaseAndTake(current.owner(), productId, counter, quantity)) {
+            return Optional.empty();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counter.give(quantity);
+                    }
+                }
+            });
+        }
+        return Optional.of(current.owner());
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-stock.reconcile-interval:1s}")
+    public void reconcile() {
+        if (hotProductIds.isEmpty()) {
+            return;
+        }
+        if (isFenced()) {
+            // The sweeper may already be returning these leases; abandon
+            // them to it and start over under a new owner
+            log.warn("Hot stock heartbeat missed for over {}, abandoning leases of {}",
+                    staleAfter.dividedBy(2), pool.owner());
+            pool = newPool();
+        }
+        Pool current = pool;
+        leaseTransaction.executeWithoutResult(status -> leaseRepository.heartbeat(current.owner()));
+        lastHeartbeatNanos = System.nanoTime();
+        int maxHeld = leaseSize * 2;
+        current.counters().forEach((productId, counter) -> {
+            int surplus = counter.drain(counter.total() - maxHeld);
+            if (surplus > 0) {
+                giveBack(current.owner(), productId, counter, surplus);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-stock.sweep-interval:30s}")
+    public void returnStaleLeases() {
+        sweepTransaction.executeWithoutResult(status -> {
+            List<StockLease> stale = leaseRepository.lockStale(
+                    LocalDateTime.now().minus(staleAfter), 100);
+            for (StockLease lease : stale) {
+                long consumed = reservationRepository.sumQuantityByLeaseOwner(lease.getProductId(), lease.getOwner());
+                long held = lease.getQuantity() - consumed;
+                if (held > 0) {
+                    productRepository.incrementStock(lease.getProductId(), (int) held);
+                    publishStock(lease.getProductId());
+                }
+                leaseRepository.delete(lease);
+                log.info("Returned {} units of product {} from stale lease of {}",
+                        Math.max(held, 0), lease.getProductId(), lease.getOwner());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void returnAll() {
+        Pool current = pool;
+        current.counters().forEach((productId, counter) -> {
+            int held = counter.drain(counter.total());
+            if (held > 0) {
+                giveBack(current.owner(), productId, counter, held);
+            }
+        });
+    }
+
+    /**
+     * Past half the stale window without a heartbeat, a sweeper may soon
+     * return this instance's lease, so the pool stops serving until the
+     * next heartbeat succeeds.
+     */
+    private boolean isFenced() {
+        return System.nanoTime() - lastHeartbeatNanos > staleAfter.toNanos() / 2;
+    }
+
+    private Pool newPool() {
+        return new Pool(applicationName + "-" + UUID.randomUUID(), new ConcurrentHashMap<>());
+    }
+
+    private boolean leaseAndTake(String owner, Long productId, Counter counter, int quantity) {
+        synchronized (counter) {
+            // Another thread may have refilled the pool while this one waited
+            if (counter.tryTake(quantity)) {
+                return true;
+            }
+            int leased = lease(owner, productId, Math.max(leaseSize, quantity));
+            if (leased < quantity) {
+                counter.give(leased);
+                return false;
+            }
+            counter.give(leased - quantity);
+            return true;
+        }
+    }
+
+    private int lease(String owner, Long productId, int wanted) {
+        Integer leased = leaseTransaction.execute(status -> {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                int available = productRepository.findStockQuantity(productId).orElse(0);
+                int take = Math.min(available, wanted);
+                if (take <= 0) {
+                    return 0;
+                }
+                if (productRepository.decrementStock(productId, take) == 1) {
+                    leaseRepository.addToLease(productId, owner, take);
+                    publishStock(productId);
+                    return take;
+                }
+            }
+            return 0;
+        });
+        return leased == null ? 0 : leased;
+    }
+
+    private void giveBack(String owner, Long productId, Counter counter, int quantity) {
+        try {
+            leaseTransaction.executeWithoutResult(status -> {
+                productRepository.incrementStock(productId, quantity);
+                leaseRepository.addToLease(productId, owner, -quantity);
+                publishStock(productId);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to return {} units of product {}: {}", quantity, productId, e.getMessage());
+            counter.give(quantity);
+        }
+    }
+
+    /**
+     * Moving units between the row and a pool leaves the sellable stock
+     * unchanged, but pooled reservations publish nothing, so lease changes
+     * are when consumers catch up on what the pools sold.
+     */
+    private void publishStock(Long productId) {
+        productRepository.findById(productId).ifPresent(changePublisher::publish);
+    }
+
+    private record Pool(String owner, Map<Long, Counter> counters) {
+    }
+
+    // Package-private for the tests and the contention benchmark
+    static final class Counter {
+        private final AtomicIntegerArray shards;
+
+        Counter(int shardCount) {
+            this.shards = new AtomicIntegerArray(shardCount);
+        }
+
+        /**
+         * Takes from shards starting at a random one; if they cannot cover
+         * the quantity together, whatever was taken is put back.
+         */
+        boolean tryTake(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(shards.length());
+            int taken = 0;
+            for (int i = 0; i < shards.length() && taken < quantity; i++) {
+                int shard = (start + i) % shards.length();
+                while (true) {
+                    int available = shards.get(shard);
+                    int take = Math.min(available, quantity - taken);
+                    if (take <= 0) {
+                        break;
+                    }
+                    if (shards.compareAndSet(shard, available, available - take)) {
+                        taken += take;
+                        break;
+                    }
+                }
+            }
+            if (taken < quantity) {
+                give(taken);
+                return false;
+            }
+            return true;
+        }
+
+        void give(int quantity) {
+            if (quantity > 0) {
+                shards.addAndGet(ThreadLocalRandom.current().nextInt(shards.length()), quantity);
+            }
+        }
+
+        int total() {
+            int total = 0;
+            for (int i = 0; i < shards.length(); i++) {
+                total += shards.get(i);
+            }
+            return total;
+        }
+
+        int drain(int quantity) {
+            int drained = 0;
+            for (int i = 0; i < shards.length() && drained < quantity; i++) {
+                int take = quantity - drained;
+                int before = shards.getAndAccumulate(i, take, (current, t) -> current - Math.min(current, t));
+                drained += Math.min(before, take);
+            }
+            return drained;
+        }
+    }
+}
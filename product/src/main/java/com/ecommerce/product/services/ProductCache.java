@@ -0,0 +1,99 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.dtos.ProductResponse;
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through Caffeine cache for single products. Entries are refreshed in
+ * the background after {@code app.product-cache.refresh-after-write}; writes
+ * on any instance reach every instance through ProductChangePublisher, so
+ * all of them invalidate together.
+ */
+@Component
+@Slf4j
+public class ProductCache implements ProductChangeListener {
+    private final ProductRepository productRepository;
+    private final LoadingCache<Long, Optional<ProductResponse>> productsById;
+
+    public ProductCache(ProductRepository productRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.product-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${app.product-cache.refresh-after-write:30s}") Duration refreshAfterWrite,
+                        @Value("${app.product-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.productRepository = productRepository;
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<ProductResponse> load(Long id) {
+                        return loadProduct(id);
+                    }
+
+                    @Override
+                    public Map<Long, Optional<ProductResponse>> loadAll(Set<? extends Long> ids) {
+                        return loadProducts(ids);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "products.by-id");
+    }
+
+    public Optional<ProductResponse> getProduct(Long id) {
+        return productsById.get(id);
+    }
+
+    /**
+     * Serves cached ids from memory and loads the rest with one query,
+     * keeping the request order and skipping unknown or inactive products.
+     */
+    public List<ProductResponse> getProducts(Collection<Long> ids) {
+        return productsById.getAll(ids).values().stream()
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public void onProductChanged(Product product) {
+        onProductsChanged(List.of(product));
+    }
+
+    @Override
+    public void onProductsChanged(List<Product> products) {
+        log.debug("Invalidating {} cached products", products.size());
+        productsById.invalidateAll(products.stream().map(Product::getId).toList());
+    }
+
+    private Optional<ProductResponse> loadProduct(Long id) {
+        return productRepository.findByIdAndActiveTrue(id)
+                .map(ProductMapper::mapToProductResponse);
+    }
+
+    private Map<Long, Optional<ProductResponse>> loadProducts(Set<? extends Long> ids) {
+        Map<Long, Optional<ProductResponse>> loaded = new HashMap<>();
+        // Missing ids are cached as absent, like single lookups
+        ids.forEach(id -> loaded.put(id, Optional.empty()));
+        productRepository.findAllByIdInAndActiveTrue(List.copyOf(ids))
+                .forEach(product -> loaded.put(product.getId(),
+                        Optional.of(ProductMapper.mapToProductResponse(product))));
+        return loaded;
+    }
+}
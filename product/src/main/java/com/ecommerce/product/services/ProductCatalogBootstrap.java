@@ -0,0 +1,47 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Replays the active catalog into in-memory listeners at startup, reading
+ * it in id-ordered chunks so the whole table is never held at once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogBootstrap {
+    private final ProductRepository productRepository;
+    private final List<ProductChangeListener> changeListeners;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayCatalog() {
+        List<ProductChangeListener> listeners = changeListeners.stream()
+                .filter(ProductChangeListener::replayOnStartup)
+                .toList();
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long lastId = 0;
+        int loaded = 0;
+        List<Product> chunk;
+        do {
+            chunk = productRepository.findTop1000ByActiveTrueAndIdGreaterThanOrderByIdAsc(lastId);
+            for (Product product : chunk) {
+                listeners.forEach(listener -> listener.onProductChanged(product));
+            }
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+                loaded += chunk.size();
+            }
+        } while (!chunk.isEmpty());
+        log.info("Loaded {} active products into {} in-memory views", loaded, listeners.size());
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.Product;
+
+import java.util.List;
+
+/**
+ * Receives every product published through ProductChangePublisher once its
+ * transaction commits, including soft deletes (which arrive with
+ * {@code active = false}). Products written on other instances arrive too,
+ * reloaded after their bus event, so every instance's views converge. Implementations that hold in-memory views of
+ * the catalog are also fed every active product at startup by
+ * ProductCatalogBootstrap.
+ */
+public interface ProductChangeListener {
+
+    void onProductChanged(Product product);
+
+    /**
+     * Receives products written together, such as one batch of an import.
+     */
+    default void onProductsChanged(List<Product> products) {
+        products.forEach(this::onProductChanged);
+    }
+
+    default boolean replayOnStartup() {
+        return false;
+    }
+}
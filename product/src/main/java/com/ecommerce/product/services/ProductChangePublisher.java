@@ -0,0 +1,127 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.dtos.ProductUpdatedEvent;
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.repositories.StockLeaseRepository;
+import com.ecommerce.product.repositories.StockReservationRepository;
+import com.ecommerce.shared.outbox.OutboxService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Single exit for product writes. In the caller's transaction it writes a
+ * product-updated event per product to the outbox; those are keyed by
+ * product id on a compacted topic, so the topic keeps the latest state of
+ * every product. Events carry the sellable stock, which includes units hot
+ * products have leased into in-memory pools. Once the transaction commits it feeds the in-memory
+ * ProductChangeListener views and broadcasts the product ids over the cloud
+ * bus, so every other instance reloads those products into its own views.
+ */
+@Service
+public class ProductChangePublisher {
+    private final OutboxService outboxService;
+    private final ProductRepository productRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final List<ProductChangeListener> changeListeners;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+    private final String topic;
+
+    public ProductChangePublisher(OutboxService outboxService,
+                                  ProductRepository productRepository,
+                                  StockLeaseRepository leaseRepository,
+                                  List<ProductChangeListener> changeListeners,
+                                  ApplicationEventPublisher eventPublisher,
+                                  BusProperties busProperties,
+                                  Destination.Factory destinationFactory,
+                                  @Value("${app.product-events.topic:product-updated}") String topic) {
+        this.outboxService = outboxService;
+        this.productRepository = productRepository;
+        this.leaseRepository = leaseRepository;
+        this.changeListeners = changeListeners;
+        this.eventPublisher = eventPublisher;
+        this.busProperties = busProperties;
+        this.destinationFactory = destinationFactory;
+        this.topic = topic;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Product product) {
+        publish(List.of(product));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        enqueueEvents(products);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeListeners.forEach(listener -> listener.onProductsChanged(products));
+                eventPublisher.publishEvent(new ProductsChangedEvent(
+                        ProductChangePublisher.this,
+                        busProperties.getId(),
+                        destinationFactory.getDestination(busProperties.getId().split(":")[0] + ":**"),
+                        products.stream().map(Product::getId).toList()));
+            }
+        });
+    }
+
+    /**
+     * Applies writes made on other instances. The bus carries only ids, so
+     * the products are reloaded; this instance's own writes were already
+     * applied after commit and are skipped.
+     */
+    @EventListener
+    public void onPeerChange(ProductsChangedEvent event) {
+        if (busProperties.getId().equals(event.getOriginService())) {
+            return;
+        }
+        List<Product> products = productRepository.findAllById(event.getProductIds());
+        if (!products.isEmpty()) {
+            changeListeners.forEach(listener -> listener.onProductsChanged(products));
+        }
+    }
+
+    /**
+     * Writes events for products that are unchanged, so consumers of the
+     * compacted topic see products that predate it. The local views already
+     * hold them and are not notified.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void backfill(List<Product> products) {
+        enqueueEvents(products);
+    }
+
+    private void enqueueEvents(List<Product> products) {
+        Map<Long, Long> held = leaseRepository.sumHeldByProduct(products.stream().map(Product::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(StockReservationRepository.ProductUnits::getProductId,
+                        StockReservationRepository.ProductUnits::getUnits));
+        for (Product product : products) {
+            int sellable = product.getStockQuantity() + Math.toIntExact(held.getOrDefault(product.getId(), 0L));
+            outboxService.enqueue(topic, product.getId().toString(), new ProductUpdatedEvent(
+                    product.getId(),
+                    product.getPrice(),
+                    sellable,
+                    product.getActive(),
+                    product.getVersion()));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Publishes the whole active catalog to the product-updated topic once,
+ * so consumers that bootstrap from the compacted topic also see products
+ * written before events existed. Enable for a single start with
+ * {@code app.product-events.backfill-on-startup}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.product-events.backfill-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEventBackfill {
+    private final ProductRepository productRepository;
+    private final ProductChangePublisher changePublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long lastId = 0;
+        int published = 0;
+        List<Product> chunk;
+        do {
+            long afterId = lastId;
+            chunk = transactionTemplate.execute(status -> {
+                List<Product> products = productRepository.findTop1000ByActiveTrueAndIdGreaterThanOrderByIdAsc(afterId);
+                changePublisher.backfill(products);
+                return products;
+            });
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+                published += chunk.size();
+            }
+        } while (!chunk.isEmpty());
+        log.info("Backfilled {} product-updated events", published);
+    }
+}
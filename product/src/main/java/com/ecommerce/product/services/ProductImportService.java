@@ -0,0 +1,215 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.dtos.ProductImportEvent;
+import com.ecommerce.product.dtos.ProductRequest;
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.shared.imports.CsvRecord;
+import com.ecommerce.shared.imports.ImportFormat;
+import com.ecommerce.shared.imports.ImportRow;
+import com.ecommerce.shared.imports.ImportRowReader;
+import com.ecommerce.shared.imports.ImportSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports products from a streamed CSV or NDJSON body. Rows are validated
+ * one by one and valid rows are written with JDBC batch inserts, which the
+ * PostgreSQL driver rewrites into multi-row statements
+ * ({@code reWriteBatchedInserts}). Hibernate cannot batch these inserts
+ * because products use IDENTITY ids. Each batch commits on its own,
+ * together with its product-updated events.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(name, description, price, stock_quantity, category, image_url, active, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, true, ?, ?)";
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "stock_quantity", "category");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductChangePublisher changePublisher;
+    private final int batchSize;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ProductRepository productRepository,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductChangePublisher changePublisher,
+                                @Value("${app.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.changePublisher = changePublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads rows from {@code input} and writes one NDJSON event per rejected
+     * row, one progress event per committed batch and a final summary.
+     */
+    public void importProducts(InputStream input, ImportFormat format, OutputStream output) throws IOException {
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+        List<ProductRequest> batch = new ArrayList<>(batchSize);
+        long batchFirstLine = 0;
+        long batchLastLine = 0;
+
+        ImportRowReader<ProductRequest> rows;
+        try {
+            rows = ImportRowReader.open(input, format, objectMapper, ProductRequest.class,
+                    REQUIRED_COLUMNS, ProductImportService::fromCsv);
+        } catch (IllegalArgumentException e) {
+            write(output, new ProductImportEvent("error", 1L, e.getMessage(), null, null, null));
+            write(output, new ProductImportEvent("summary", null, null, 0L, 0L, 0L));
+            output.flush();
+            return;
+        }
+
+        ImportRow<ProductRequest> row;
+        while ((row = rows.next()) != null) {
+            processed++;
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                failed++;
+                write(output, new ProductImportEvent("error", row.line(), error, null, null, null));
+                continue;
+            }
+            if (batch.isEmpty()) {
+                batchFirstLine = row.line();
+            }
+            batch.add(row.request());
+            batchLastLine = row.line();
+            if (batch.size() >= batchSize) {
+                int written = insertBatch(batch, batchFirstLine, batchLastLine, output);
+                imported += written;
+                failed += batch.size() - written;
+                batch.clear();
+                write(output, new ProductImportEvent("progress", null, null, processed, imported, failed));
+                output.flush();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int written = insertBatch(batch, batchFirstLine, batchLastLine, output);
+            imported += written;
+            failed += batch.size() - written;
+        }
+        write(output, new ProductImportEvent("summary", null, null, processed, imported, failed));
+        output.flush();
+        log.info("Product import finished: {} rows, {} imported, {} failed", processed, imported, failed);
+    }
+
+    private int insertBatch(List<ProductRequest> batch, long firstLine, long lastLine,
+                            OutputStream output) throws IOException {
+        long lastIdBefore = productRepository.findMaxId();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, product) -> {
+                    ps.setString(1, product.getName());
+                    ps.setString(2, product.getDescription());
+                    ps.setBigDecimal(3, product.getPrice());
+                    ps.setInt(4, product.getStockQuantity());
+                    ps.setString(5, product.getCategory());
+                    ps.setString(6, product.getImageUrl());
+                    ps.setTimestamp(7, now);
+                    ps.setTimestamp(8, now);
+                });
+                publishImported(lastIdBefore);
+            });
+        } catch (DataAccessException e) {
+            log.error("Product import batch at lines {}-{} failed: {}", firstLine, lastLine, e.getMessage());
+            write(output, new ProductImportEvent("error", firstLine,
+                    "Batch ending at line " + lastLine + " was rejected: " + e.getMostSpecificCause().getMessage(),
+                    null, null, null));
+            return 0;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Inserted ids are not returned by the batch, but they are all above
+     * the highest id seen before it; anything else picked up concurrently
+     * is simply published again.
+     */
+    private void publishImported(long lastIdBefore) {
+        long lastId = lastIdBefore;
+        List<Product> chunk;
+        do {
+            chunk = productRepository.findTop1000ByActiveTrueAndIdGreaterThanOrderByIdAsc(lastId);
+            if (!chunk.isEmpty()) {
+                changePublisher.publish(chunk);
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (!chunk.isEmpty());
+    }
+
+    private String validate(ProductRequest request) {
+        List<String> errors = ImportSupport.violations(validator, request);
+        // Column limits the DTO does not declare
+        if (request.getName() != null && request.getName().length() > 255) {
+            errors.add("Product name must be at most 255 characters");
+        }
+        if (request.getCategory() != null && request.getCategory().length() > 100) {
+            errors.add("Category must be at most 100 characters");
+        }
+        if (request.getImageUrl() != null && request.getImageUrl().length() > 500) {
+            errors.add("Image URL must be at most 500 characters");
+        }
+        if (request.getPrice() != null
+                && (request.getPrice().compareTo(MAX_PRICE) > 0 || request.getPrice().scale() > 2)) {
+            errors.add("Price must be at most 99999999.99 with two decimals");
+        }
+        return ImportSupport.joinErrors(errors);
+    }
+
+    private static ProductRequest fromCsv(CsvRecord record) {
+        ProductRequest request = new ProductRequest();
+        request.setName(record.field("name"));
+        request.setDescription(record.field("description"));
+        request.setCategory(record.field("category"));
+        request.setImageUrl(record.field("image_url"));
+        try {
+            String price = record.field("price");
+            request.setPrice(price == null ? null : new BigDecimal(price));
+            String stock = record.field("stock_quantity");
+            request.setStockQuantity(stock == null ? null : Integer.valueOf(stock));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Price and stock quantity must be numbers");
+        }
+        return request;
+    }
+
+    private void write(OutputStream output, ProductImportEvent event) throws IOException {
+        ImportSupport.writeEvent(output, objectMapper, event);
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.dtos.ProductResponse;
+import com.ecommerce.product.models.Product;
+
+public final class ProductMapper {
+
+    private ProductMapper() {
+    }
+
+    public static ProductResponse mapToProductResponse(Product savedProduct) {
+        ProductResponse response = new ProductResponse();
+        response.setId(savedProduct.getId());
+        response.setName(savedProduct.getName());
+        response.setActive(savedProduct.getActive());
+        response.setCategory(savedProduct.getCategory());
+        response.setDescription(savedProduct.getDescription());
+        response.setPrice(savedProduct.getPrice());
+        response.setImageUrl(savedProduct.getImageUrl());
+        response.setStockQuantity(savedProduct.getStockQuantity());
+        response.setVersion(savedProduct.getVersion());
+        return response;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.product.services;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.Map;
+
+/**
+ * Broadcast over the cloud bus when a reservation is confirmed so every
+ * other product-service instance counts the sold units towards its
+ * suggestion ranking.
+ */
+@Getter
+@NoArgsConstructor
+public class ProductSalesEvent extends RemoteApplicationEvent {
+
+    private Map<Long, Long> unitsByProduct;
+
+    public ProductSalesEvent(Object source, String originService,
+                             Destination destination, Map<Long, Long> unitsByProduct) {
+        super(source, originService, destination);
+        this.unitsByProduct = unitsByProduct;
+    }
+}
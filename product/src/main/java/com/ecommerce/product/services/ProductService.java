@@ -1,40 +1,63 @@
 package com.ecommerce.product.services;
 
+import com.ecommerce.product.dtos.PriceBucketCount;
+import com.ecommerce.product.dtos.ProductFacetResponse;
+import com.ecommerce.product.dtos.ProductPageResponse;
 import com.ecommerce.product.dtos.ProductRequest;
 import com.ecommerce.product.dtos.ProductResponse;
 import com.ecommerce.product.models.Product;
 import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.search.ProductFacetIndex;
+import com.ecommerce.product.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductCache productCache;
+    private final ProductChangePublisher changePublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
+    @Transactional
     public ProductResponse createProduct(ProductRequest productRequest) {
         Product product = new Product();
         updateProductFromRequest(product, productRequest);
-        Product savedProduct = productRepository.save(product);
-        return mapToProductResponse(savedProduct);
-    }
-
-    private ProductResponse mapToProductResponse(Product savedProduct) {
-        ProductResponse response = new ProductResponse();
-        response.setId(savedProduct.getId());
-        response.setName(savedProduct.getName());
-        response.setActive(savedProduct.getActive());
-        response.setCategory(savedProduct.getCategory());
-        response.setDescription(savedProduct.getDescription());
-        response.setPrice(savedProduct.getPrice());
-        response.setImageUrl(savedProduct.getImageUrl());
-        response.setStockQuantity(savedProduct.getStockQuantity());
-        return response;
+        Product savedProduct = productRepository.saveAndFlush(product);
+        changePublisher.publish(savedProduct);
+        return ProductMapper.mapToProductResponse(savedProduct);
     }
 
     private void updateProductFromRequest(Product product, ProductRequest productRequest) {
@@ -46,38 +69,143 @@ public class ProductService {
         product.setStockQuantity(productRequest.getStockQuantity());
     }
 
+    @Transactional
     public Optional<ProductResponse> updateProduct(Long id, ProductRequest productRequest) {
         return productRepository.findById(id)
                 .map(existingProduct -> {
                     updateProductFromRequest(existingProduct, productRequest);
-                    Product savedProduct = productRepository.save(existingProduct);
-                    return mapToProductResponse(savedProduct);
+                    // Flush first so the event carries the incremented version
+                    Product savedProduct = productRepository.saveAndFlush(existingProduct);
+                    changePublisher.publish(savedProduct);
+                    return ProductMapper.mapToProductResponse(savedProduct);
                 });
     }
 
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findByActiveTrue().stream()
-                .map(this::mapToProductResponse)
+    public ProductPageResponse getProductsPage(int page, int size) {
+        Page<Product> products = productRepository.findByActiveTrue(
+                PageRequest.of(page, size, Sort.by("id")));
+        return toPageResponse(products.getContent(), products.hasNext(), products.getTotalElements());
+    }
+
+    public ProductPageResponse getProductsAfter(String cursor, int size) {
+        List<Product> products = productRepository.findPageAfter(
+                decodeCursor(cursor), PageRequest.of(0, size + 1));
+        boolean hasMore = products.size() > size;
+        return toPageResponse(hasMore ? products.subList(0, size) : products, hasMore, null);
+    }
+
+    /**
+     * Writes every active product as a JSON array straight from a database
+     * cursor, detaching each row once written so the persistence context
+     * stays empty.
+     */
+    public void writeActiveProducts(OutputStream out) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamActiveProducts();
+                 JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    generator.writeObject(ProductMapper.mapToProductResponse(product));
+                    entityManager.detach(product);
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Latest modification across the whole catalog. Deletes are soft and
+     * stock updates touch {@code updatedAt}, so any visible change moves it.
+     */
+    public Optional<Instant> getCatalogLastModified() {
+        return productRepository.findLastUpdatedAt()
+                .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private ProductPageResponse toPageResponse(List<Product> products, boolean hasMore, Long totalElements) {
+        List<ProductResponse> responses = products.stream()
+                .map(ProductMapper::mapToProductResponse)
                 .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(products.get(products.size() - 1).getId()) : null;
+        return new ProductPageResponse(responses, totalElements, nextCursor);
     }
 
+    private String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    @Transactional
     public boolean deleteProduct(Long id) {
         return productRepository.findById(id)
                 .map(product -> {
                     product.setActive(false);
-                    productRepository.save(product);
+                    changePublisher.publish(productRepository.saveAndFlush(product));
                     return true;
                 }).orElse(false);
     }
 
-    public List<ProductResponse> searchProducts(String keyword) {
-        return productRepository.searchProducts(keyword).stream()
-                .map(this::mapToProductResponse)
+    /**
+     * Ranks matches with the in-memory index, then loads only the requested
+     * page of products by primary key, preserving rank order.
+     */
+    public Page<ProductResponse> searchProducts(String keyword, int page, int size) {
+        ProductSearchIndex.SearchHits hits = productSearchIndex.search(keyword, page, size);
+        return new PageImpl<>(loadInOrder(hits.productIds()), PageRequest.of(page, size), hits.total());
+    }
+
+    /**
+     * Filters and counts facets with the in-memory bitset index, then loads
+     * only the requested page of products by primary key.
+     */
+    public ProductFacetResponse filterProducts(ProductFacetIndex.FacetQuery query) {
+        ProductFacetIndex.FacetResult result = productFacetIndex.filter(query);
+        List<PriceBucketCount> priceBuckets = result.priceBuckets().stream()
+                .map(bucket -> new PriceBucketCount(bucket.min(), bucket.max(), bucket.count()))
+                .collect(Collectors.toList());
+        return new ProductFacetResponse(loadInOrder(result.productIds()), result.total(),
+                result.categoryCounts(), priceBuckets);
+    }
+
+    private List<ProductResponse> loadInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = productRepository.findAllByIdInAndActiveTrue(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return productIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(ProductMapper::mapToProductResponse)
                 .collect(Collectors.toList());
     }
 
     public Optional<ProductResponse> getProductById(String id) {
-        return productRepository.findByIdAndActiveTrue(Long.valueOf(id))
-                .map(this::mapToProductResponse);
+        return productCache.getProduct(Long.valueOf(id));
+    }
+
+    public List<ProductResponse> getProductsByIds(List<String> ids) {
+        List<Long> productIds = ids.stream()
+                .map(Long::valueOf)
+                .distinct()
+                .toList();
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return productCache.getProducts(productIds);
     }
 }
@@ -0,0 +1,25 @@
+package com.ecommerce.product.services;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Broadcast over the cloud bus when products change so every other
+ * product-service instance reloads them into its cache and in-memory views.
+ */
+@Getter
+@NoArgsConstructor
+public class ProductsChangedEvent extends RemoteApplicationEvent {
+
+    private List<Long> productIds;
+
+    public ProductsChangedEvent(Object source, String originService,
+                                Destination destination, List<Long> productIds) {
+        super(source, originService, destination);
+        this.productIds = productIds;
+    }
+}
@@ -0,0 +1,201 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.dtos.ReservationItemRequest;
+import com.ecommerce.product.dtos.StockReservationRequest;
+import com.ecommerce.product.dtos.StockReservationResponse;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.models.ReservationStatus;
+import com.ecommerce.product.models.StockReservation;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.repositories.StockReservationRepository;
+import com.ecommerce.product.search.ProductSuggestionIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Reserves stock with conditional decrements on the products table, so
+ * concurrent reservations never read-modify-write the stock column. Hot
+ * products are served from HotStockService's leased in-memory pool.
+ * Reservations that are not confirmed before their TTL are swept and
+ * their quantity is returned to stock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final ProductSuggestionIndex suggestionIndex;
+    private final HotStockService hotStockService;
+    private final ProductChangePublisher changePublisher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+
+    @Value("${app.reservation.ttl:15m}")
+    private Duration reservationTtl;
+
+    @Value("${app.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    @Transactional
+    public StockReservationResponse reserve(StockReservationRequest request) {
+        // Merge duplicate lines and lock rows in id order to avoid deadlocks
+        Map<Long, Integer> quantities = new TreeMap<>();
+        request.getItems().forEach(item ->
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+
+        String reservationId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl);
+        List<StockReservation> lines = quantities.entrySet().stream()
+                .map(entry -> {
+                    StockReservation line = new StockReservation();
+                    if (hotStockService.isHot(entry.getKey())) {
+                        line.setLeaseOwner(hotStockService.tryTake(entry.getKey(), entry.getValue())
+                                .orElseThrow(() -> new InsufficientStockException(entry.getKey())));
+                    } else if (productRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                        throw new InsufficientStockException(entry.getKey());
+                    }
+                    line.setReservationId(reservationId);
+                    line.setProductId(entry.getKey());
+                    line.setQuantity(entry.getValue());
+                    line.setExpiresAt(expiresAt);
+                    return line;
+                })
+                .toList();
+
+        reservationRepository.saveAll(lines);
+        publishStockChange(quantities.keySet().stream().filter(id -> !hotStockService.isHot(id)).toList());
+        return mapToResponse(reservationId, ReservationStatus.ACTIVE, lines);
+    }
+
+    public Optional<StockReservationResponse> getReservation(String reservationId) {
+        List<StockReservation> lines = reservationRepository.findByReservationId(reservationId);
+        if (lines.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(mapToResponse(reservationId, lines.get(0).getStatus(), lines));
+    }
+
+    /**
+     * Confirms every line or none. If the expiry sweep released some lines
+     * first, the partial confirmation is rolled back, since the order would
+     * otherwise hold stock that was already given back.
+     */
+    @Transactional
+    public boolean confirm(String reservationId) {
+        long lineCount = reservationRepository.countByReservationId(reservationId);
+        int confirmed = reservationRepository.transitionAll(
+                reservationId, ReservationStatus.ACTIVE, ReservationStatus.CONFIRMED);
+        if (confirmed == 0) {
+            return false;
+        }
+        if (confirmed != lineCount) {
+            log.warn("Reservation {} had {} of {} lines still active, not confirming",
+                    reservationId, confirmed, lineCount);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        Map<Long, Long> sold = reservationRepository.findByReservationId(reservationId).stream()
+                .collect(Collectors.toMap(StockReservation::getProductId,
+                        line -> (long) line.getQuantity(), Long::sum));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sold.forEach(suggestionIndex::addPopularity);
+                eventPublisher.publishEvent(new ProductSalesEvent(
+                        StockReservationService.this,
+                        busProperties.getId(),
+                        destinationFactory.getDestination(busProperties.getId().split(":")[0] + ":**"),
+                        sold));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Counts units confirmed on other instances; this instance's own
+     * confirmations were counted after commit.
+     */
+    @EventListener
+    public void onPeerSales(ProductSalesEvent event) {
+        if (!busProperties.getId().equals(event.getOriginService())) {
+            event.getUnitsByProduct().forEach(suggestionIndex::addPopularity);
+        }
+    }
+
+    @Transactional
+    public boolean release(String reservationId) {
+        List<StockReservation> lines =
+                reservationRepository.findByReservationIdAndStatus(reservationId, ReservationStatus.ACTIVE);
+        lines.forEach(this::releaseLine);
+        publishStockChange(lines.stream().map(StockReservation::getProductId).distinct().toList());
+        return !lines.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservation.sweep-interval:30s}")
+    @Transactional
+    public void releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findExpired(
+                ReservationStatus.ACTIVE, LocalDateTime.now(), PageRequest.of(0, sweepBatchSize));
+        if (!expired.isEmpty()) {
+            log.info("Releasing {} expired stock reservation lines", expired.size());
+            expired.forEach(this::releaseLine);
+            publishStockChange(expired.stream().map(StockReservation::getProductId).distinct().toList());
+        }
+    }
+
+    private void releaseLine(StockReservation line) {
+        // Only the caller that wins the status transition gives stock back
+        if (reservationRepository.transition(line.getId(),
+                ReservationStatus.ACTIVE, ReservationStatus.RELEASED) == 1) {
+            productRepository.incrementStock(line.getProductId(), line.getQuantity());
+        }
+    }
+
+    /**
+     * Stock moves through bulk updates rather than ProductService, so the
+     * changed rows are reloaded to publish their new state.
+     */
+    private void publishStockChange(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            changePublisher.publish(productRepository.findAllById(productIds));
+        }
+    }
+
+    private StockReservationResponse mapToResponse(String reservationId,
+                                                   ReservationStatus status,
+                                                   List<StockReservation> lines) {
+        return new StockReservationResponse(
+                reservationId,
+                status,
+                lines.stream()
+                        .map(line -> new ReservationItemRequest(line.getProductId(), line.getQuantity()))
+                        .toList(),
+                lines.get(0).getExpiresAt()
+        );
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.product.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contended single-unit decrements of one hot product: a single counter,
+ * standing in for every reservation updating the same row, against the
+ * sharded pool counter. Refills are amortised over a large lease so the
+ * numbers reflect the take path. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class HotStockBenchmark {
+    private static final int REFILL = 1_000_000;
+
+    @Param({"1", "8", "32"})
+    int shards;
+
+    AtomicInteger single;
+    HotStockService.Counter sharded;
+
+    @Setup
+    public void setUp() {
+        single = new AtomicInteger(REFILL);
+        sharded = new HotStockService.Counter(shards);
+        sharded.give(REFILL);
+    }
+
+    @Benchmark
+    public boolean singleCounter() {
+        while (true) {
+            int available = single.get();
+            if (available == 0) {
+                single.compareAndSet(0, REFILL);
+                continue;
+            }
+            if (single.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean shardedCounter() {
+        if (sharded.tryTake(1)) {
+            return true;
+        }
+        sharded.give(REFILL);
+        return false;
+    }
+}
@@ -0,0 +1,255 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.StockLease;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.repositories.StockLeaseRepository;
+import com.ecommerce.product.repositories.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotStockServiceTest {
+    private static final Long PRODUCT_ID = 7L;
+    private static final int LEASE_SIZE = 10;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockLeaseRepository leaseRepository = mock(StockLeaseRepository.class);
+    private final StockReservationRepository reservationRepository = mock(StockReservationRepository.class);
+    private final ProductChangePublisher changePublisher = mock(ProductChangePublisher.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AtomicInteger rowStock = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(productRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(productRepository.findStockQuantity(PRODUCT_ID)).thenAnswer(invocation -> Optional.of(rowStock.get()));
+        when(productRepository.decrementStock(eq(PRODUCT_ID), anyInt())).thenAnswer(invocation -> {
+            int quantity = invocation.getArgument(1);
+            int before = rowStock.getAndAccumulate(quantity, (stock, q) -> stock >= q ? stock - q : stock);
+            return before >= quantity ? 1 : 0;
+        });
+        when(productRepository.incrementStock(eq(PRODUCT_ID), anyInt())).thenAnswer(invocation ->
+                rowStock.addAndGet(invocation.getArgument(1)) >= 0 ? 1 : 0);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void takesFromOneLeaseUntilItRunsDry() {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMinutes(2));
+
+        for (int i = 0; i < LEASE_SIZE; i++) {
+            assertThat(service.tryTake(PRODUCT_ID, 1)).isPresent();
+        }
+        verify(productRepository, times(1)).decrementStock(PRODUCT_ID, LEASE_SIZE);
+        assertThat(rowStock.get()).isEqualTo(100 - LEASE_SIZE);
+
+        assertThat(service.tryTake(PRODUCT_ID, 1)).isPresent();
+        verify(productRepository, times(2)).decrementStock(PRODUCT_ID, LEASE_SIZE);
+    }
+
+    @Test
+    void leasesAtLeastTheRequestedQuantity() {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMinutes(2));
+
+        Optional<String> owner = service.tryTake(PRODUCT_ID, 25);
+
+        assertThat(owner).isPresent();
+        verify(productRepository).decrementStock(PRODUCT_ID, 25);
+        verify(leaseRepository).addToLease(PRODUCT_ID, owner.get(), 25);
+    }
+
+    @Test
+    void refusesWhenTheRowCannotCoverTheQuantity() {
+        rowStock.set(3);
+        HotStockService service = newService(Duration.ofMinutes(2));
+
+        assertThat(service.tryTake(PRODUCT_ID, 5)).isEmpty();
+        // The partial lease stays in the pool for smaller requests
+        assertThat(service.tryTake(PRODUCT_ID, 3)).isPresent();
+        assertThat(rowStock.get()).isZero();
+    }
+
+    @Test
+    void concurrentTakesNeverSellMoreThanTheRowHeld() throws Exception {
+        rowStock.set(500);
+        HotStockService service = newService(Duration.ofMinutes(2));
+        int threads = 8;
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    // With single units a refusal means the row and the pool are both empty
+                    while (service.tryTake(PRODUCT_ID, 1).isPresent()) {
+                        sold.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(sold.get()).isEqualTo(500);
+        assertThat(rowStock.get()).isZero();
+    }
+
+    @Test
+    void rolledBackTakeGoesBackToThePool() {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMinutes(2));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.tryTake(PRODUCT_ID, LEASE_SIZE);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(service.tryTake(PRODUCT_ID, LEASE_SIZE)).isPresent();
+        verify(productRepository, times(1)).decrementStock(eq(PRODUCT_ID), anyInt());
+    }
+
+    @Test
+    void reconcileGivesSurplusBackToTheRow() {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMinutes(2));
+        TransactionSynchronizationManager.initSynchronization();
+        Optional<String> owner = service.tryTake(PRODUCT_ID, 35);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        service.reconcile();
+
+        // The pool keeps at most two leases' worth
+        verify(productRepository).incrementStock(PRODUCT_ID, 35 - 2 * LEASE_SIZE);
+        verify(leaseRepository).addToLease(PRODUCT_ID, owner.get(), -(35 - 2 * LEASE_SIZE));
+        assertThat(rowStock.get()).isEqualTo(100 - 2 * LEASE_SIZE);
+    }
+
+    @Test
+    void returnAllGivesEverythingBack() {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMinutes(2));
+        service.tryTake(PRODUCT_ID, 1);
+
+        service.returnAll();
+
+        assertThat(rowStock.get()).isEqualTo(99);
+    }
+
+    @Test
+    void staleHeartbeatFencesThePool() throws InterruptedException {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMillis(200));
+        assertThat(service.tryTake(PRODUCT_ID, 1)).isPresent();
+
+        Thread.sleep(150);
+
+        assertThat(service.tryTake(PRODUCT_ID, 1)).isEmpty();
+    }
+
+    @Test
+    void reconcileAfterFencingStartsOverUnderANewOwner() throws InterruptedException {
+        rowStock.set(100);
+        HotStockService service = newService(Duration.ofMillis(200));
+        String firstOwner = service.tryTake(PRODUCT_ID, 1).orElseThrow();
+
+        Thread.sleep(150);
+        service.reconcile();
+
+        String secondOwner = service.tryTake(PRODUCT_ID, 1).orElseThrow();
+        assertThat(secondOwner).isNotEqualTo(firstOwner);
+        verify(leaseRepository).heartbeat(secondOwner);
+        // The abandoned lease is left for the sweeper, not given back twice
+        verify(leaseRepository, never()).addToLease(eq(PRODUCT_ID), eq(firstOwner), eq(-9));
+    }
+
+    @Test
+    void sweeperReturnsWhatAStaleLeaseStillHolds() {
+        rowStock.set(0);
+        StockLease lease = new StockLease(1L, PRODUCT_ID, "product-service-dead", 50, LocalDateTime.now().minusHours(1));
+        when(leaseRepository.lockStale(any(), anyInt())).thenReturn(List.of(lease));
+        when(reservationRepository.sumQuantityByLeaseOwner(PRODUCT_ID, "product-service-dead")).thenReturn(20L);
+        HotStockService service = newService(Duration.ofMinutes(2));
+
+        service.returnStaleLeases();
+
+        verify(productRepository).incrementStock(PRODUCT_ID, 30);
+        verify(leaseRepository).delete(lease);
+        assertThat(rowStock.get()).isEqualTo(30);
+    }
+
+    @Test
+    void sweeperDeletesFullyConsumedLeases() {
+        StockLease lease = new StockLease(1L, PRODUCT_ID, "product-service-dead", 50, LocalDateTime.now().minusHours(1));
+        when(leaseRepository.lockStale(any(), anyInt())).thenReturn(List.of(lease));
+        when(reservationRepository.sumQuantityByLeaseOwner(eq(PRODUCT_ID), anyString())).thenReturn(50L);
+        HotStockService service = newService(Duration.ofMinutes(2));
+
+        service.returnStaleLeases();
+
+        verify(productRepository, never()).incrementStock(anyLong(), anyInt());
+        verify(leaseRepository).delete(lease);
+    }
+
+    @Test
+    void counterTakesAcrossShardsAndPutsBackPartialTakes() {
+        HotStockService.Counter counter = new HotStockService.Counter(4);
+        counter.give(3);
+        counter.give(3);
+
+        assertThat(counter.tryTake(5)).isTrue();
+        assertThat(counter.total()).isEqualTo(1);
+        assertThat(counter.tryTake(2)).isFalse();
+        assertThat(counter.total()).isEqualTo(1);
+        assertThat(counter.drain(5)).isEqualTo(1);
+        assertThat(counter.total()).isZero();
+    }
+
+    private HotStockService newService(Duration staleAfter) {
+        return new HotStockService(productRepository, leaseRepository, reservationRepository, changePublisher,
+                transactionManager, "product-service", List.of(PRODUCT_ID), 8, LEASE_SIZE, staleAfter);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.product.services;
+
+import com.ecommerce.product.models.Product;
+import com.ecommerce.product.repositories.ProductRepository;
+import com.ecommerce.product.repositories.StockLeaseRepository;
+import com.ecommerce.product.search.ProductFacetIndex;
+import com.ecommerce.shared.outbox.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductChangePublisherTest {
+    private static final String INSTANCE_ID = "product-service:8081:a";
+    private static final String PEER_ID = "product-service:8082:b";
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockLeaseRepository leaseRepository = mock(StockLeaseRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final Destination.Factory destinationFactory = mock(Destination.Factory.class);
+    private final ProductFacetIndex facetIndex = new ProductFacetIndex(List.of(new BigDecimal("50")));
+    private ProductChangePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        BusProperties busProperties = new BusProperties();
+        busProperties.setId(INSTANCE_ID);
+        when(destinationFactory.getDestination(anyString())).thenReturn(mock(Destination.class));
+        when(leaseRepository.sumHeldByProduct(anyCollection())).thenReturn(List.of());
+        publisher = new ProductChangePublisher(mock(OutboxService.class), productRepository, leaseRepository,
+                List.of(facetIndex), eventPublisher, busProperties, destinationFactory, "product-updated");
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void localWriteFeedsViewsAndBroadcastsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.publish(product(1L, "books", 5, true));
+        assertThat(inStockIds("books")).isEmpty();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(inStockIds("books")).containsExactly(1L);
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) ->
+                event instanceof ProductsChangedEvent changed
+                        && changed.getOriginService().equals(INSTANCE_ID)
+                        && changed.getProductIds().equals(List.of(1L))));
+    }
+
+    @Test
+    void peerWriteUpdatesFacetMembership() {
+        facetIndex.index(product(1L, "books", 5, true));
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(product(1L, "games", 0, true)));
+
+        publisher.onPeerChange(peerEvent(PEER_ID, 1L));
+
+        assertThat(inStockIds("books")).isEmpty();
+        assertThat(facetIndex.filter(query("games", false)).productIds()).containsExactly(1L);
+        assertThat(inStockIds("games")).isEmpty();
+    }
+
+    @Test
+    void peerSoftDeleteRemovesTheProduct() {
+        facetIndex.index(product(1L, "books", 5, true));
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(product(1L, "books", 5, false)));
+
+        publisher.onPeerChange(peerEvent(PEER_ID, 1L));
+
+        assertThat(facetIndex.filter(query("books", false)).productIds()).isEmpty();
+    }
+
+    @Test
+    void ownBroadcastIsNotAppliedTwice() {
+        publisher.onPeerChange(peerEvent(INSTANCE_ID, 1L));
+
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    private List<Long> inStockIds(String category) {
+        return facetIndex.filter(query(category, true)).productIds();
+    }
+
+    private static ProductFacetIndex.FacetQuery query(String category, boolean inStockOnly) {
+        return new ProductFacetIndex.FacetQuery(category, null, null, inStockOnly,
+                ProductFacetIndex.SortOrder.ID, 0, 20);
+    }
+
+    private ProductsChangedEvent peerEvent(String origin, Long productId) {
+        return new ProductsChangedEvent(this, origin, mock(Destination.class), List.of(productId));
+    }
+
+    private static Product product(Long id, String category, int stock, boolean active) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStockQuantity(stock);
+        product.setActive(active);
+        product.setCreatedAt(LocalDateTime.now());
+        return product;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.shared.imports;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A CSV record whose fields are looked up by header name. Names are
+ * matched ignoring case and underscores, so {@code stock_quantity} and
+ * {@code stockQuantity} are the same column.
+ */
+public final class CsvRecord {
+    private final Map<String, Integer> columns;
+    private final List<String> values;
+
+    CsvRecord(Map<String, Integer> columns, List<String> values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * @return the stripped value, or null when the column is missing or blank
+     */
+    public String field(String column) {
+        Integer index = columns.get(normalize(column));
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    static String normalize(String column) {
+        return column.strip().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.shared.imports;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Body formats accepted by the bulk import endpoints.
+ */
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    /**
+     * @return CSV for {@code text/csv}, NDJSON for anything else the
+     * endpoint accepted
+     */
+    public static ImportFormat fromContentType(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? CSV
+                : NDJSON;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.shared.imports;
+
+/**
+ * One row of an import: either a parsed request or the reason it could not
+ * be parsed, with the line it starts on.
+ */
+public record ImportRow<T>(long line, T request, String error) {
+}
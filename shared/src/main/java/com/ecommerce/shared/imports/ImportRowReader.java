@@ -0,0 +1,102 @@
+package com.ecommerce.shared.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streams import rows from a CSV or NDJSON body, one at a time, so the
+ * body is never held in memory. Blank lines are skipped and line numbers
+ * count every physical line, including the CSV header and line breaks
+ * inside quoted fields.
+ */
+@FunctionalInterface
+public interface ImportRowReader<T> {
+
+    /**
+     * @return the next row, or null at the end of the body
+     */
+    ImportRow<T> next() throws IOException;
+
+    /**
+     * Opens a reader for {@code format}. NDJSON rows are bound to
+     * {@code type}; CSV records are handed to {@code csvMapper}, which may
+     * throw IllegalArgumentException to reject the row with its message.
+     *
+     * @throws IllegalArgumentException if the CSV body is empty or its
+     *                                  header lacks a required column
+     */
+    static <T> ImportRowReader<T> open(InputStream input, ImportFormat format, ObjectMapper objectMapper,
+                                       Class<T> type, List<String> requiredColumns,
+                                       Function<CsvRecord, T> csvMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return format == ImportFormat.CSV
+                ? csv(reader, requiredColumns, csvMapper)
+                : ndjson(reader, objectMapper, type);
+    }
+
+    static <T> ImportRowReader<T> ndjson(BufferedReader reader, ObjectMapper objectMapper, Class<T> type) {
+        long[] line = {0};
+        return () -> {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line[0]++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    T request = objectMapper.readValue(text, type);
+                    return request == null
+                            ? new ImportRow<>(line[0], null, "Row must be a JSON object")
+                            : new ImportRow<>(line[0], request, null);
+                } catch (JsonProcessingException e) {
+                    return new ImportRow<>(line[0], null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    static <T> ImportRowReader<T> csv(BufferedReader reader, List<String> requiredColumns,
+                                      Function<CsvRecord, T> mapper) throws IOException {
+        CsvParser parser = new CsvParser(reader);
+        List<String> header = parser.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV body is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(CsvRecord.normalize(header.get(i)), i);
+        }
+        for (String required : requiredColumns) {
+            if (!columns.containsKey(CsvRecord.normalize(required))) {
+                throw new IllegalArgumentException("CSV header is missing column " + required);
+            }
+        }
+        return () -> {
+            List<String> record;
+            long line;
+            do {
+                line = parser.getLine() + 1;
+                record = parser.readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isBlank());
+            if (record == null) {
+                return null;
+            }
+            try {
+                return new ImportRow<>(line, mapper.apply(new CsvRecord(columns, record)), null);
+            } catch (IllegalArgumentException e) {
+                return new ImportRow<>(line, null, e.getMessage());
+            }
+        };
+    }
+}
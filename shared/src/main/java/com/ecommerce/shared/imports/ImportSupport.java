@@ -0,0 +1,46 @@
+package com.ecommerce.shared.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers shared by the streamed import services.
+ */
+public final class ImportSupport {
+
+    private ImportSupport() {
+    }
+
+    /**
+     * @return the request's constraint violation messages, sorted, in a
+     * list the caller may add its own checks to
+     */
+    public static List<String> violations(Validator validator, Object request) {
+        return validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * @return the messages joined for an error event, or null if there are none
+     */
+    public static String joinErrors(List<String> errors) {
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+
+    /**
+     * Writes {@code event} as one NDJSON line.
+     */
+    public static void writeEvent(OutputStream output, ObjectMapper objectMapper, Object event) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(event));
+        output.write('\n');
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.shared.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Transactional Outbox Configuration
+ * Import into a service to record events with its writes and relay them to Kafka;
+ * the outbox entity and repository are picked up alongside the service's own
+ */
+@Configuration
+@AutoConfigurationPackage(basePackageClasses = OutboxEvent.class)
+public class OutboxConfig {
+
+    @Bean
+    public OutboxService outboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        return new OutboxService(outboxEventRepository, objectMapper);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxEventRepository outboxEventRepository,
+                                   KafkaTemplate<String, String> outboxKafkaTemplate,
+                                   MeterRegistry meterRegistry) {
+        return new OutboxRelay(outboxEventRepository, outboxKafkaTemplate, meterRegistry);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.shared.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in batches and publishes to Kafka. Rows are only
+ * marked sent after the broker acknowledges them, which gives
+ * at-least-once delivery.
+ */
+@Slf4j
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+    private final DistributionSummary batchSize;
+    private final Counter published;
+    private final Counter failed;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Value("${app.outbox.batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${app.outbox.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Value("${app.outbox.retention:1d}")
+    private Duration retention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, String> outboxKafkaTemplate,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.batchSize = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Events published per relay poll")
+                .register(meterRegistry);
+        this.published = meterRegistry.counter("outbox.relay.events", "result", "published");
+        this.failed = meterRegistry.counter("outbox.relay.events", "result", "failed");
+        Gauge.builder("outbox.relay.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Age in seconds of the oldest unpublished outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:500ms}")
+    @Transactional
+    public void relay() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(maxBatchSize);
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+
+        List<CompletableFuture<?>> sends = batch.stream()
+                .<CompletableFuture<?>>map(event ->
+                        outboxKafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload()))
+                .toList();
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(batch.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Failed to publish outbox event {}: {}", batch.get(i).getId(), e.getMessage());
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.markSent(sentIds, LocalDateTime.now());
+        }
+        batchSize.record(sentIds.size());
+        published.increment(sentIds.size());
+        failed.increment(batch.size() - sentIds.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:1h}")
+    @Transactional
+    public void purgeSent() {
+        int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.shared.product;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local replica of product state built from product-updated events.
+ * Events can arrive more than once or out of order, so an event only
+ * replaces the current entry when its version is newer.
+ */
+public class ProductReplica {
+
+    private final Map<Long, ProductUpdatedEvent> products = new ConcurrentHashMap<>();
+
+    /**
+     * Apply an event
+     * @param event Event read from the topic
+     * @return true if the replica changed
+     */
+    public boolean apply(ProductUpdatedEvent event) {
+        boolean[] changed = {false};
+        products.compute(event.id(), (id, current) -> {
+            if (current == null || current.version() == null || event.version() == null
+                    || event.version() > current.version()) {
+                changed[0] = true;
+                return event;
+            }
+            return current;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Remove a product, e.g. on a tombstone record
+     * @param productId Product ID
+     */
+    public void remove(Long productId) {
+        products.remove(productId);
+    }
+
+    /**
+     * Get the replicated state of a product
+     * @param productId Product ID
+     * @return State or empty if the product has not been seen
+     */
+    public Optional<ProductUpdatedEvent> get(Long productId) {
+        return Optional.ofNullable(products.get(productId));
+    }
+
+    public int size() {
+        return products.size();
+    }
+}
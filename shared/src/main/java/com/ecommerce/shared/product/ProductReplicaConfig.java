@@ -0,0 +1,23 @@
+package com.ecommerce.shared.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product Replica Configuration
+ * Import into a service to keep a local replica of product state
+ */
+@Configuration
+public class ProductReplicaConfig {
+
+    @Bean
+    public ProductReplica productReplica() {
+        return new ProductReplica();
+    }
+
+    @Bean
+    public ProductReplicaListener productReplicaListener(ProductReplica productReplica, ObjectMapper objectMapper) {
+        return new ProductReplicaListener(productReplica, objectMapper);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.shared.product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+
+/**
+ * Keeps a ProductReplica up to date from the product-updated topic.
+ * Every instance assigns itself all partitions and reads them from offset
+ * zero on each start, so each one rebuilds the full replica from the
+ * compacted topic without joining a consumer group. The group id only
+ * names where offsets get committed; one stable name per service keeps
+ * restarts from leaving orphaned groups behind, and the committed offsets
+ * are never read back.
+ */
+public class ProductReplicaListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplicaListener.class);
+
+    private final ProductReplica replica;
+    private final ObjectMapper objectMapper;
+
+    public ProductReplicaListener(ProductReplica replica, ObjectMapper objectMapper) {
+        this.replica = replica;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(
+            topicPartitions = @TopicPartition(
+                    topic = "${app.product-replica.topic:product-updated}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")),
+            groupId = "${spring.application.name}-product-replica",
+            properties = {
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer"
+            })
+    public void onProductUpdated(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            Long productId = parseProductId(record.key());
+            if (productId == null) {
+                log.warn("Skipping product-updated tombstone without a product id key: {}", record.key());
+                return;
+            }
+            replica.remove(productId);
+            return;
+        }
+        try {
+            replica.apply(objectMapper.readValue(record.value(), ProductUpdatedEvent.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping malformed product-updated event for key {}: {}", record.key(), e.getMessage());
+        }
+    }
+
+    private static Long parseProductId(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.shared.product;
+
+import java.math.BigDecimal;
+
+/**
+ * Latest state of a product as published by product-service on the
+ * compacted product-updated topic, keyed by product id.
+ */
+public record ProductUpdatedEvent(Long id,
+                                  BigDecimal price,
+                                  Integer stockQuantity,
+                                  Boolean active,
+                                  Long version) {
+}
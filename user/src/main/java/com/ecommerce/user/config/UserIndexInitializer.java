@@ -0,0 +1,104 @@
+package com.ecommerce.user.config;
+
+import com.ecommerce.user.models.ProvisioningStatus;
+import com.ecommerce.user.models.User;
+import com.ecommerce.user.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Creates the indexes declared on {@link User} once duplicate emails that
+ * predate the unique email index are dealt with; building it over duplicates
+ * would fail startup. Duplicates that never got a Keycloak account are
+ * removed. If real accounts still share an email, the email index is skipped
+ * and they are logged for manual cleanup, so the service keeps starting as
+ * it did before the index existed.
+ * <p>
+ * Runs before the web server starts, so signup and import never see a
+ * collection without the index when it could be built.
+ */
+@Component
+@Slf4j
+public class UserIndexInitializer implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final MongoMappingContext mappingContext;
+
+    public UserIndexInitializer(MongoTemplate mongoTemplate,
+                                UserRepository userRepository,
+                                MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean emailUnique = removeDuplicateEmails();
+        IndexOperations indexOps = mongoTemplate.indexOps(User.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        resolver.resolveIndexFor(User.class).forEach(index -> {
+            if (!emailUnique && index.getIndexKeys().containsKey("email")) {
+                return;
+            }
+            indexOps.ensureIndex(index);
+        });
+    }
+
+    /**
+     * Returns whether every email now belongs to a single user.
+     */
+    private boolean removeDuplicateEmails() {
+        List<Document> duplicates = mongoTemplate.aggregate(newAggregation(
+                group("email").count().as("count").addToSet("_id").as("ids"),
+                match(where("count").gt(1))), User.class, Document.class).getMappedResults();
+        boolean unique = true;
+        for (Document duplicate : duplicates) {
+            String email = duplicate.getString("_id");
+            List<User> users = new ArrayList<>(userRepository.findByIdIn(duplicate.getList("ids", Object.class).stream()
+                    .map(Object::toString)
+                    .toList()));
+            // Keep accounts first, then the oldest user
+            users.sort(Comparator.comparing((User user) -> isUnprovisioned(user))
+                    .thenComparing(User::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+            List<User> extra = users.subList(1, users.size());
+            if (extra.stream().allMatch(UserIndexInitializer::isUnprovisioned)) {
+                long removed = extra.stream()
+                        .mapToLong(user -> userRepository.deleteByIdAndProvisioningStatus(
+                                user.getId(), ProvisioningStatus.FAILED))
+                        .sum();
+                log.info("Removed {} failed signups sharing email {} with user {}",
+                        removed, email, users.get(0).getId());
+                // A retried signup may have picked one up in the meantime
+                unique &= removed == extra.size();
+            } else {
+                unique = false;
+                log.error("Users {} share email {}; resolve them by hand, the unique email index is not created",
+                        users.stream().map(User::getId).toList(), email);
+            }
+        }
+        return unique;
+    }
+
+    // Failed signups never kept a Keycloak account, so nothing else refers to them
+    private static boolean isUnprovisioned(User user) {
+        return user.getProvisioningStatus() == ProvisioningStatus.FAILED && user.getKeycloakId() == null;
+    }
+}
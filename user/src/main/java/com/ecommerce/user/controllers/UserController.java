@@ -1,16 +1,24 @@
 package com.ecommerce.user.controllers;
 
+import com.ecommerce.user.dto.UserPageResponse;
 import com.ecommerce.user.dto.UserRequest;
 import com.ecommerce.user.dto.UserResponse;
+import com.ecommerce.user.services.UserImportService;
 import com.ecommerce.user.services.UserService;
+import com.ecommerce.shared.imports.ImportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,16 +26,75 @@ import java.util.List;
 @Slf4j
 public class UserController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserService userService;
+    private final UserImportService userImportService;
 //    private static Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    /**
+     * Without {@code size} or {@code cursor} every user is returned, as it
+     * always was; the list is streamed, so its size does not bound memory.
+     */
+    @GetMapping(params = {"!size", "!cursor", "!stream", "!ids"})
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestParam(required = false) String fields){
+        return streamUsers(fields);
+    }
+
+    /**
+     * Pages through users ordered by id; pass the {@code X-Next-Cursor}
+     * value back as {@code cursor} for the next page. {@code fields} limits
+     * the response to a comma-separated subset, e.g. {@code id,email,role}.
+     */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers(){
+    public ResponseEntity<List<UserResponse>> getUsersPage(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields){
         try {
-            log.info("Fetching all users");
-            return new ResponseEntity<>(userService.fetchAllUsers(), HttpStatus.OK);
+            log.info("Fetching users size {} cursor {}", size, cursor);
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            UserPageResponse results = userService.fetchUsers(cursor, size, userService.parseFields(fields));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (results.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, results.getNextCursor());
+            }
+            return response.body(results.getUsers());
         } catch (Exception e) {
-            log.error("Error fetching all users: {}", e.getMessage());
+            log.error("Error fetching users: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @RequestParam(required = false) String fields){
+        try {
+            log.info("Streaming all users");
+            Set<String> projection = userService.parseFields(fields);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> userService.writeUsers(out, projection));
+        } catch (Exception e) {
+            log.error("Error streaming users: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = {"ids", "stream!=true"})
+    public ResponseEntity<List<UserResponse>> getUsersByIds(@RequestParam List<String> ids) {
+        try {
+            log.info("Fetching {} users by id", ids.size());
+            if (ids.size() > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(userService.fetchUsersByIds(ids));
+        } catch (Exception e) {
+            log.error("Error fetching users {}: {}", ids, e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
@@ -56,14 +123,42 @@ public class UserController {
     public ResponseEntity<String> createUser(@Valid @RequestBody UserRequest userRequest){
         try {
             log.info("Creating user: {}", userRequest.getEmail());
-            userService.addUser(userRequest);
-            return ResponseEntity.ok("User added successfully");
+            return userService.addUser(userRequest)
+                    .map(user -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                            .header(HttpHeaders.LOCATION, "/api/users/" + user.getId())
+                            .body("User registration accepted"))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body("Signups are busy, please retry"));
         } catch (Exception e) {
             log.error("Error creating user: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Failed to create user: " + e.getMessage());
         }
     }
 
+    /**
+     * Streams CSV (with a header row) or NDJSON users from the request body
+     * and answers with NDJSON row errors, progress and a summary. Passing
+     * the import id from an earlier run resumes it.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) String importId,
+            InputStream body) {
+        try {
+            ImportFormat format = ImportFormat.fromContentType(contentType);
+            log.info("Importing users from {}", format);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> userImportService.importUsers(body, format, importId, out));
+        } catch (Exception e) {
+            log.error("Error importing users: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<String> updateUser(@PathVariable String id,
                                              @Valid @RequestBody UserRequest updateUserRequest){
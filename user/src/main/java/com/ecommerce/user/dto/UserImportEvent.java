@@ -0,0 +1,32 @@
+package com.ecommerce.user.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON import response: the import id to resume with
+ * ({@code started}), a rejected row ({@code error}), a batch checkpoint
+ * ({@code progress}) or the final {@code summary}. Counts include rows
+ * handled by earlier runs of the same import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportEvent {
+    private String type;
+
+    private String importId;
+
+    private Long line;
+
+    private String message;
+
+    private Long processed;
+
+    private Long imported;
+
+    private Long failed;
+}
@@ -1,6 +1,8 @@
 package com.ecommerce.user.dto;
 
+import com.ecommerce.user.models.ProvisioningStatus;
 import com.ecommerce.user.models.UserRole;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,11 +10,11 @@ import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserResponse {
     @NotBlank(message = "User ID is required")
     private String id;
     
-    @NotBlank(message = "Keycloak ID is required")
     private String keyCloakId;
     
     @NotBlank(message = "First name is required")
@@ -32,4 +34,6 @@ public class UserResponse {
     private UserRole role;
     
     private AddressDTO address;
+
+    private ProvisioningStatus provisioningStatus;
 }
@@ -0,0 +1,5 @@
+package com.ecommerce.user.models;
+
+public enum ProvisioningStatus {
+    PROVISIONING, ACTIVE, FAILED
+}
@@ -23,7 +23,7 @@ public class User {
     @Id
     private String id;
     
-    @NotBlank(message = "Keycloak ID is required")
+    // Set once the Keycloak account exists; empty while provisioning
     private String keycloakId;
     
     @NotBlank(message = "First name is required")
@@ -45,6 +45,19 @@ public class User {
     
     private Address address;
 
+    // Missing on users created before asynchronous provisioning, which are active
+    private ProvisioningStatus provisioningStatus;
+
+    private String provisioningError;
+
+    private LocalDateTime provisioningQueuedAt;
+
+    // Set when a worker picks the user up
+    private LocalDateTime provisioningStartedAt;
+
+    // Bulk import that created the user, used to resume that import
+    private String importId;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -0,0 +1,41 @@
+package com.ecommerce.user.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk user import. Every row up to {@code checkpointLine}
+ * has been stored and provisioned, so a re-upload with the same id skips
+ * straight past it. Only the upload holding the lease in {@code owner}
+ * may move the checkpoint, so two uploads of one import cannot interleave.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "user_imports")
+public class UserImportJob {
+    @Id
+    private String id;
+
+    private UserImportStatus status = UserImportStatus.RUNNING;
+
+    private long checkpointLine;
+
+    private long processed;
+
+    private long imported;
+
+    private long failed;
+
+    private String owner;
+
+    // Renewed at every checkpoint; past it another upload may take the import over
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.user.models;
+
+public enum UserImportStatus {
+    RUNNING, COMPLETED
+}
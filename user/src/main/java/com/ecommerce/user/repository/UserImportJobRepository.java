@@ -0,0 +1,26 @@
+package com.ecommerce.user.repository;
+
+import com.ecommerce.user.models.UserImportJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserImportJobRepository extends MongoRepository<UserImportJob, String> {
+
+    /**
+     * Hands the import to {@code owner} unless another upload holds an
+     * unexpired lease on it.
+     */
+    @Query("{ '_id': ?0, $or: [ { 'status': { $ne: 'RUNNING' } }, { 'leaseUntil': null }, " +
+            "{ 'leaseUntil': { $lt: ?2 } } ] }")
+    @Update("{ '$set': { 'status': 'RUNNING', 'owner': ?1, 'leaseUntil': ?3, 'updatedAt': ?2 } }")
+    long claim(String id, String owner, LocalDateTime now, LocalDateTime leaseUntil);
+
+    @Query("{ '_id': ?0, 'owner': ?1 }")
+    @Update("{ '$set': { 'leaseUntil': null } }")
+    long release(String id, String owner);
+}
@@ -1,18 +1,23 @@
 package com.ecommerce.user.repository;
 
+import com.ecommerce.user.models.ProvisioningStatus;
 import com.ecommerce.user.models.User;
 import com.ecommerce.user.models.UserRole;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
+
+    List<User> findByIdIn(Collection<String> ids);
     
     Optional<User> findByKeycloakId(String keycloakId);
     
@@ -34,4 +39,35 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByEmail(String email);
     
     boolean existsByKeycloakId(String keycloakId);
+
+    long deleteByIdAndProvisioningStatus(String id, ProvisioningStatus status);
+
+    @Query("{ '_id': ?0, 'provisioningStatus': ?1 }")
+    @Update("{ '$set': { 'provisioningStartedAt': ?2 } }")
+    long markProvisioningStarted(String id, ProvisioningStatus status, LocalDateTime startedAt);
+
+    @Query("{ '_id': ?0, 'provisioningStatus': ?1 }")
+    @Update("{ '$set': { 'provisioningStatus': ?2, 'keycloakId': ?3, 'provisioningError': ?4 } }")
+    long updateProvisioning(String id, ProvisioningStatus from, ProvisioningStatus to,
+                            String keycloakId, String error);
+
+    /**
+     * Queues a user stored by an import again after it failed or was expired
+     * as stale, so resuming that import provisions it once more.
+     */
+    @Query("{ '_id': ?0, 'importId': ?1, 'provisioningStatus': ?2 }")
+    @Update("{ '$set': { 'provisioningStatus': ?3, 'provisioningError': null, 'provisioningQueuedAt': ?4 }, " +
+            "'$unset': { 'provisioningStartedAt': '' } }")
+    long requeueImported(String id, String importId, ProvisioningStatus from, ProvisioningStatus to,
+                         LocalDateTime queuedAt);
+
+    /**
+     * Fails users a worker started on before {@code startedCutoff}, or that
+     * were queued before {@code queuedCutoff} and never picked up.
+     */
+    @Query("{ 'provisioningStatus': ?0, $or: [ { 'provisioningStartedAt': { $lt: ?1 } }, " +
+            "{ 'provisioningStartedAt': null, 'provisioningQueuedAt': { $lt: ?2 } } ] }")
+    @Update("{ '$set': { 'provisioningStatus': ?3, 'provisioningError': ?4 } }")
+    long expireStaleProvisioning(ProvisioningStatus from, LocalDateTime startedCutoff, LocalDateTime queuedCutoff,
+                                 ProvisioningStatus to, String error);
 }
@@ -1,26 +1,25 @@
 package com.ecommerce.user.services;
 
 import com.ecommerce.user.dto.UserRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
+@RequiredArgsConstructor
 public class KeyCloakAdminService {
 
-    @Value("${keycloak.admin.username}")
-    private String adminUsername;
-
-    @Value("${keycloak.admin.password}")
-    private String adminPassword;
+    private final KeyCloakAdminTokenManager tokenManager;
+    private final RestTemplate restTemplate;
 
     @Value("${keycloak.admin.server-url}")
     private String keycloakServerUrl;
@@ -28,42 +27,11 @@ public class KeyCloakAdminService {
     @Value("${keycloak.admin.realm}")
     private String realm;
 
-    @Value("${keycloak.admin.client-id}")
-    private String clientId;
-
     @Value("${keycloak.admin.client-uid}")
     private String clientUid;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-
     public String getAdminAccessToken() {
-        try {
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("client_id", clientId);
-            params.add("username", adminUsername);
-            params.add("password", adminPassword);
-            params.add("grant_type", "password");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            HttpEntity<MultiValueMap<String, String>> entity =
-                    new HttpEntity<>(params, headers);
-
-            String url = keycloakServerUrl + "/realms/" + realm + "/protocol/openid-connect/token";
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    url,
-                    entity,
-                    Map.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new RuntimeException("Failed to get admin access token from Keycloak");
-            }
-
-            return (String) response.getBody().get("access_token");
-        } catch (Exception e) {
-            throw new RuntimeException("Error getting admin access token: " + e.getMessage(), e);
-        }
+        return tokenManager.getToken();
     }
 
     public String createUser(String token, UserRequest userRequest) {
@@ -110,6 +78,34 @@ public class KeyCloakAdminService {
         return path.substring(path.lastIndexOf("/") + 1);
     }
 
+    /**
+     * Looks up an existing Keycloak user, used when a retried create finds
+     * that an earlier attempt already succeeded. The email must match too,
+     * so a taken username is never mistaken for the same person.
+     */
+    public Optional<String> findUserId(String token, String username, String email) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        String url = keycloakServerUrl + "/admin/realms/" + realm + "/users?username={username}&exact=true";
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                entity,
+                new ParameterizedTypeReference<>() {},
+                username
+        );
+
+        if (response.getBody() == null) {
+            return Optional.empty();
+        }
+        return response.getBody().stream()
+                .filter(user -> email.equalsIgnoreCase((String) user.get("email")))
+                .map(user -> (String) user.get("id"))
+                .findFirst();
+    }
+
     private Map<String, Object> getRealmRoleRepresentation(String token,
                                                            String roleName) {
         HttpHeaders headers = new HttpHeaders();
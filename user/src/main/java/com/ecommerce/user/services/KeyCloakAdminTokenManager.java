@@ -0,0 +1,187 @@
+package com.ecommerce.user.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches the Keycloak admin access token. A token is served until
+ * {@code app.keycloak.admin-token.expiry-skew} before {@code expires_in};
+ * once it is within {@code refresh-ahead} of expiry the next caller starts a
+ * background refresh and keeps using the current token. Concurrent callers
+ * share a single in-flight token request.
+ */
+@Component
+@Slf4j
+public class KeyCloakAdminTokenManager {
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<CompletableFuture<AdminToken>> inFlight = new AtomicReference<>();
+    private final String tokenUrl;
+    private final String clientId;
+    private final String adminUsername;
+    private final String adminPassword;
+    private final Duration expirySkew;
+    private final Duration refreshAhead;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+    private final Timer refreshTimer;
+    private volatile AdminToken current;
+
+    private record AdminToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+
+    public KeyCloakAdminTokenManager(RestTemplate restTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${keycloak.admin.server-url}") String keycloakServerUrl,
+                                     @Value("${keycloak.admin.realm}") String realm,
+                                     @Value("${keycloak.admin.client-id}") String clientId,
+                                     @Value("${keycloak.admin.username}") String adminUsername,
+                                     @Value("${keycloak.admin.password}") String adminPassword,
+                                     @Value("${app.keycloak.admin-token.expiry-skew:5s}") Duration expirySkew,
+                                     @Value("${app.keycloak.admin-token.refresh-ahead:20s}") Duration refreshAhead) {
+        this.restTemplate = restTemplate;
+        this.tokenUrl = keycloakServerUrl + "/realms/" + realm + "/protocol/openid-connect/token";
+        this.clientId = clientId;
+        this.adminUsername = adminUsername;
+        this.adminPassword = adminPassword;
+        this.expirySkew = expirySkew;
+        this.refreshAhead = refreshAhead;
+        this.hits = Counter.builder("keycloak.admin.token.requests")
+                .description("Admin token lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("keycloak.admin.token.requests")
+                .description("Admin token lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.refreshSuccesses = Counter.builder("keycloak.admin.token.refreshes")
+                .description("Admin token requests sent to Keycloak")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("keycloak.admin.token.refreshes")
+                .description("Admin token requests sent to Keycloak")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.refreshTimer = Timer.builder("keycloak.admin.token.refresh.duration")
+                .description("Latency of admin token requests to Keycloak")
+                .register(meterRegistry);
+    }
+
+    public String getToken() {
+        AdminToken token = current;
+        Instant now = Instant.now();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            hits.increment();
+            if (!now.isBefore(token.refreshAt())) {
+                refresh();
+            }
+            return token.value();
+        }
+        misses.increment();
+        try {
+            return refresh().join().value();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached token, e.g. after Keycloak rejected it, so the next
+     * caller fetches a fresh one.
+     */
+    public void invalidate() {
+        current = null;
+    }
+
+    private CompletableFuture<AdminToken> refresh() {
+        while (true) {
+            CompletableFuture<AdminToken> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<AdminToken> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                refresher.execute(() -> runRefresh(future));
+                return future;
+            }
+        }
+    }
+
+    private void runRefresh(CompletableFuture<AdminToken> future) {
+        try {
+            AdminToken token = refreshTimer.recordCallable(this::requestToken);
+            current = token;
+            refreshSuccesses.increment();
+            future.complete(token);
+        } catch (Exception e) {
+            refreshFailures.increment();
+            log.warn("Failed to refresh Keycloak admin token: {}", e.getMessage());
+            future.completeExceptionally(
+                    new RuntimeException("Error getting admin access token: " + e.getMessage(), e));
+        } finally {
+            inFlight.compareAndSet(future, null);
+        }
+    }
+
+    private AdminToken requestToken() {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("client_id", clientId);
+        params.add("username", adminUsername);
+        params.add("password", adminPassword);
+        params.add("grant_type", "password");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(params, headers);
+
+        // Measured before the call so the cached lifetime never exceeds the real one
+        Instant issuedAt = Instant.now();
+        ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, entity, Map.class);
+
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new RuntimeException("Failed to get admin access token from Keycloak");
+        }
+
+        String accessToken = (String) response.getBody().get("access_token");
+        Number expiresIn = (Number) response.getBody().get("expires_in");
+        Duration lifetime = expiresIn != null ? Duration.ofSeconds(expiresIn.longValue()) : Duration.ZERO;
+        Instant expiresAt = issuedAt.plus(lifetime).minus(expirySkew);
+        Instant refreshAt = issuedAt.plus(lifetime).minus(refreshAhead);
+        if (refreshAt.isAfter(expiresAt)) {
+            refreshAt = expiresAt;
+        }
+        return new AdminToken(accessToken, refreshAt, expiresAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,205 @@
+package com.ecommerce.user.services;
+
+import com.ecommerce.user.dto.UserRequest;
+import com.ecommerce.user.models.ProvisioningStatus;
+import com.ecommerce.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes signups in the background. Users are stored as
+ * {@link ProvisioningStatus#PROVISIONING} and queued; a fixed number of
+ * virtual-thread workers creates the Keycloak account, assigns the default
+ * role and marks the user active, retrying transient failures with
+ * exponential backoff. The worker count caps concurrent Keycloak calls and
+ * the bounded queue rejects bursts instead of buffering them without limit.
+ * Status changes only apply while the user is still provisioning, so a user
+ * expired as stale is neither picked up nor activated afterwards.
+ * Passwords only live in the queued task and are never persisted.
+ */
+@Service
+@Slf4j
+public class KeyCloakProvisioningPipeline {
+    private static final String DEFAULT_ROLE = "USER";
+
+    private final KeyCloakAdminService keyCloakAdminService;
+    private final KeyCloakAdminTokenManager tokenManager;
+    private final UserRepository userRepository;
+    private final ThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Counter provisioned;
+    private final Counter failed;
+    private final Counter retries;
+
+    @Value("${app.provisioning.stale-after:15m}")
+    private Duration staleAfter;
+
+    @Value("${app.provisioning.queued-stale-after:2h}")
+    private Duration queuedStaleAfter;
+
+    public KeyCloakProvisioningPipeline(KeyCloakAdminService keyCloakAdminService,
+                                        KeyCloakAdminTokenManager tokenManager,
+                                        UserRepository userRepository,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.provisioning.workers:8}") int workerCount,
+                                        @Value("${app.provisioning.queue-capacity:1000}") int queueCapacity,
+                                        @Value("${app.provisioning.max-attempts:5}") int maxAttempts,
+                                        @Value("${app.provisioning.initial-backoff:500ms}") Duration initialBackoff) {
+        this.keyCloakAdminService = keyCloakAdminService;
+        this.tokenManager = tokenManager;
+        this.userRepository = userRepository;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("keycloak-provisioning-", 0).factory());
+        Gauge.builder("keycloak.provisioning.queue.size", workers, executor -> executor.getQueue().size())
+                .description("Signups waiting for Keycloak provisioning")
+                .register(meterRegistry);
+        this.provisioned = Counter.builder("keycloak.provisioning.users")
+                .tag("outcome", "provisioned")
+                .register(meterRegistry);
+        this.failed = Counter.builder("keycloak.provisioning.users")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.retries = Counter.builder("keycloak.provisioning.retries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false when the queue is full and the signup was not accepted
+     */
+    public boolean submit(String userId, UserRequest userRequest) {
+        try {
+            workers.execute(() -> provision(userId, userRequest));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Provisioning queue full, rejecting signup for {}", userRequest.getEmail());
+            return false;
+        }
+    }
+
+    /**
+     * Provisions one stored user on the calling thread, retrying transient
+     * failures, and records the outcome on the user.
+     *
+     * @return true when the user ended up active
+     */
+    public boolean provision(String userId, UserRequest userRequest) {
+        if (userRepository.markProvisioningStarted(userId, ProvisioningStatus.PROVISIONING, LocalDateTime.now()) == 0) {
+            // Expired while queued, or replaced by a newer signup
+            log.warn("Skipping provisioning for user {}, it is no longer pending", userId);
+            return false;
+        }
+        // Kept across attempts so a retry after a failed role assignment does not recreate the user
+        String keycloakUserId = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (keycloakUserId == null) {
+                    keycloakUserId = createOrFindUser(userRequest);
+                }
+                keyCloakAdminService.assignRealmRoleToUser(userRequest.getUsername(),
+                        DEFAULT_ROLE, keycloakUserId);
+                if (userRepository.updateProvisioning(userId, ProvisioningStatus.PROVISIONING,
+                        ProvisioningStatus.ACTIVE, keycloakUserId, null) == 0) {
+                    log.error("User {} expired while provisioning, Keycloak account {} was not activated",
+                            userId, keycloakUserId);
+                    return false;
+                }
+                provisioned.increment();
+                return true;
+            } catch (Exception e) {
+                if (e instanceof HttpClientErrorException.Unauthorized) {
+                    tokenManager.invalidate();
+                }
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    log.error("Provisioning failed for user {} after {} attempts: {}",
+                            userId, attempt, e.getMessage());
+                    markFailed(userId, keycloakUserId, e.getMessage());
+                    return false;
+                }
+                retries.increment();
+                log.warn("Provisioning attempt {} failed for user {}: {}", attempt, userId, e.getMessage());
+                try {
+                    Thread.sleep(backoff(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    markFailed(userId, keycloakUserId, "Provisioning interrupted");
+                    return false;
+                }
+            }
+        }
+    }
+
+    private String createOrFindUser(UserRequest userRequest) {
+        String token = keyCloakAdminService.getAdminAccessToken();
+        try {
+            return keyCloakAdminService.createUser(token, userRequest);
+        } catch (HttpClientErrorException.Conflict e) {
+            // An earlier attempt may have created the user before timing out
+            return keyCloakAdminService.findUserId(token, userRequest.getUsername(), userRequest.getEmail())
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private void markFailed(String userId, String keycloakUserId, String error) {
+        failed.increment();
+        try {
+            userRepository.updateProvisioning(userId, ProvisioningStatus.PROVISIONING,
+                    ProvisioningStatus.FAILED, keycloakUserId, error);
+        } catch (Exception e) {
+            log.error("Could not mark user {} as failed: {}", userId, e.getMessage());
+        }
+    }
+
+    private boolean isRetryable(Exception e) {
+        // Other 4xx responses (bad payload, conflicting email) will not succeed on retry
+        if (e instanceof HttpClientErrorException clientError) {
+            int status = clientError.getStatusCode().value();
+            return status == 401 || status == 408 || status == 429;
+        }
+        return true;
+    }
+
+    private long backoff(int attempt) {
+        long max = initialBackoff.toMillis() << Math.min(attempt - 1, 10);
+        return max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1);
+    }
+
+    @Scheduled(fixedDelayString = "${app.provisioning.stale-check-interval:1m}")
+    public void expireStaleProvisioning() {
+        // Signups left behind by an instance that stopped mid-flight; their password is gone
+        LocalDateTime now = LocalDateTime.now();
+        long expired = userRepository.expireStaleProvisioning(
+                ProvisioningStatus.PROVISIONING,
+                now.minus(staleAfter),
+                now.minus(queuedStaleAfter),
+                ProvisioningStatus.FAILED,
+                "Provisioning was not completed in time");
+        if (expired > 0) {
+            log.warn("Marked {} stale signups as failed", expired);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,376 @@
+package com.ecommerce.user.services;
+
+import com.ecommerce.shared.imports.CsvRecord;
+import com.ecommerce.shared.imports.ImportFormat;
+import com.ecommerce.shared.imports.ImportRow;
+import com.ecommerce.shared.imports.ImportRowReader;
+import com.ecommerce.shared.imports.ImportSupport;
+import com.ecommerce.user.dto.AddressDTO;
+import com.ecommerce.user.dto.UserImportEvent;
+import com.ecommerce.user.dto.UserRequest;
+import com.ecommerce.user.models.ProvisioningStatus;
+import com.ecommerce.user.models.User;
+import com.ecommerce.user.models.UserImportJob;
+import com.ecommerce.user.models.UserImportStatus;
+import com.ecommerce.user.repository.UserImportJobRepository;
+import com.ecommerce.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Imports users from a streamed CSV or NDJSON body. Valid rows are stored
+ * in batches with one unordered {@code insertMany}, so a duplicate email
+ * only rejects its own document, and each batch is then provisioned in
+ * Keycloak with at most {@code app.import.provisioning-concurrency} users
+ * in flight across all imports.
+ * <p>
+ * The import checkpoint moves past a batch only once it is stored and
+ * provisioned. Uploading the same file again with the returned import id
+ * skips everything before the checkpoint and re-provisions rows of that
+ * import which were stored but never finished, including ones that failed
+ * or were expired as stale in the meantime.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("username", "password", "first_name", "last_name", "email");
+
+    private record Pending(long line, String userId, UserRequest request) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final UserImportJobRepository jobRepository;
+    private final UserService userService;
+    private final KeyCloakProvisioningPipeline provisioningPipeline;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Duration lease;
+    private final Semaphore provisioningPermits;
+
+    public UserImportService(MongoTemplate mongoTemplate,
+                             UserRepository userRepository,
+                             UserImportJobRepository jobRepository,
+                             UserService userService,
+                             KeyCloakProvisioningPipeline provisioningPipeline,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${app.import.batch-size:500}") int batchSize,
+                             @Value("${app.import.provisioning-concurrency:16}") int provisioningConcurrency,
+                             @Value("${app.import.lease:10m}") Duration lease) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.jobRepository = jobRepository;
+        this.userService = userService;
+        this.provisioningPipeline = provisioningPipeline;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.provisioningPermits = new Semaphore(provisioningConcurrency);
+    }
+
+    /**
+     * Reads rows from {@code input} and writes a start event carrying the
+     * import id, one NDJSON event per rejected row, one progress event per
+     * checkpoint and a final summary.
+     */
+    public void importUsers(InputStream input, ImportFormat format, String importId,
+                            OutputStream output) throws IOException {
+        Optional<UserImportJob> claimed = openJob(importId);
+        if (claimed.isEmpty()) {
+            write(output, new UserImportEvent("error", importId, null,
+                    "Import " + importId + " is already running", null, null, null));
+            output.flush();
+            return;
+        }
+        UserImportJob job = claimed.get();
+        try {
+            runImport(job, input, format, output);
+        } finally {
+            jobRepository.release(job.getId(), job.getOwner());
+        }
+    }
+
+    private void runImport(UserImportJob job, InputStream input, ImportFormat format,
+                           OutputStream output) throws IOException {
+        long resumeAfter = job.getCheckpointLine();
+        write(output, event("started", job, resumeAfter > 0 ? resumeAfter : null, null));
+        output.flush();
+
+        ImportRowReader<UserRequest> rows;
+        try {
+            rows = ImportRowReader.open(input, format, objectMapper, UserRequest.class,
+                    REQUIRED_COLUMNS, UserImportService::fromCsv);
+        } catch (IllegalArgumentException e) {
+            write(output, event("error", job, 1L, e.getMessage()));
+            write(output, event("summary", job, null, null));
+            output.flush();
+            return;
+        }
+
+        List<ImportRow<UserRequest>> batch = new ArrayList<>(batchSize);
+        long lastLine = resumeAfter;
+        try {
+            ImportRow<UserRequest> row;
+            while ((row = rows.next()) != null) {
+                if (row.line() <= resumeAfter) {
+                    continue;
+                }
+                lastLine = row.line();
+                job.setProcessed(job.getProcessed() + 1);
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    reject(job, output, row.line(), error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    importBatch(job, batch, output);
+                    batch.clear();
+                    checkpoint(job, lastLine, UserImportStatus.RUNNING);
+                    write(output, event("progress", job, null, null));
+                    output.flush();
+                }
+            }
+            if (!batch.isEmpty()) {
+                importBatch(job, batch, output);
+            }
+            checkpoint(job, lastLine, UserImportStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            log.error("User import {} stopped after checkpoint line {}: {}",
+                    job.getId(), job.getCheckpointLine(), e.getMessage());
+            write(output, event("error", job, null,
+                    "Import stopped, upload again with importId " + job.getId() + " to resume: " + e.getMessage()));
+            output.flush();
+            return;
+        }
+        write(output, event("summary", job, null, null));
+        output.flush();
+        log.info("User import {} finished: {} rows, {} imported, {} failed",
+                job.getId(), job.getProcessed(), job.getImported(), job.getFailed());
+    }
+
+    /**
+     * Creates or claims the import for this upload, or returns empty while
+     * another upload holds it.
+     */
+    private Optional<UserImportJob> openJob(String importId) {
+        String id = importId != null ? importId : UUID.randomUUID().toString();
+        String owner = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (!jobRepository.existsById(id)) {
+            UserImportJob created = new UserImportJob();
+            created.setId(id);
+            created.setOwner(owner);
+            created.setLeaseUntil(now.plus(lease));
+            created.setStartedAt(now);
+            created.setUpdatedAt(now);
+            try {
+                return Optional.of(jobRepository.insert(created));
+            } catch (DuplicateKeyException e) {
+                // Another upload created it first; claim it like any existing import
+            }
+        }
+        if (jobRepository.claim(id, owner, now, now.plus(lease)) == 0) {
+            return Optional.empty();
+        }
+        return jobRepository.findById(id);
+    }
+
+    /**
+     * Saves progress and renews the lease, unless the lease ran out and
+     * another upload took the import over.
+     */
+    private void checkpoint(UserImportJob job, long line, UserImportStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        long updated = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(job.getId()).and("owner").is(job.getOwner())),
+                new Update()
+                        .set("checkpointLine", line)
+                        .set("status", status)
+                        .set("processed", job.getProcessed())
+                        .set("imported", job.getImported())
+                        .set("failed", job.getFailed())
+                        .set("updatedAt", now)
+                        .set("leaseUntil", now.plus(lease)),
+                UserImportJob.class).getMatchedCount();
+        if (updated == 0) {
+            throw new IllegalStateException("Import " + job.getId() + " was taken over by another upload");
+        }
+        job.setCheckpointLine(line);
+        job.setStatus(status);
+        job.setUpdatedAt(now);
+    }
+
+    private void importBatch(UserImportJob job, List<ImportRow<UserRequest>> batch,
+                             OutputStream output) throws IOException {
+        List<User> users = new ArrayList<>(batch.size());
+        for (ImportRow<UserRequest> row : batch) {
+            User user = userService.newProvisioningUser(row.request());
+            // Assigned up front because bulk inserts do not write generated ids back
+            user.setId(new ObjectId().toHexString());
+            user.setImportId(job.getId());
+            users.add(user);
+        }
+
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                    .insert(users)
+                    .execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+        }
+
+        Set<String> insertedIds = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (!errors.containsKey(i)) {
+                insertedIds.add(users.get(i).getId());
+            }
+        }
+
+        List<Pending> pending = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ImportRow<UserRequest> row = batch.get(i);
+            BulkWriteError error = errors.get(i);
+            if (error == null) {
+                pending.add(new Pending(row.line(), users.get(i).getId(), row.request()));
+            } else if (error.getCode() != DUPLICATE_KEY) {
+                reject(job, output, row.line(), error.getMessage());
+            } else {
+                Optional<User> existing = userRepository.findByEmail(row.request().getEmail());
+                if (existing.isEmpty()
+                        || !job.getId().equals(existing.get().getImportId())
+                        || insertedIds.contains(existing.get().getId())) {
+                    reject(job, output, row.line(), "Email already exists");
+                } else if (existing.get().getProvisioningStatus() == ProvisioningStatus.ACTIVE) {
+                    // Stored and provisioned by an earlier run of this import
+                    job.setImported(job.getImported() + 1);
+                } else {
+                    if (existing.get().getProvisioningStatus() == ProvisioningStatus.FAILED) {
+                        // Failed or expired as stale in an earlier run; this row brings its password back
+                        userRepository.requeueImported(existing.get().getId(), job.getId(),
+                                ProvisioningStatus.FAILED, ProvisioningStatus.PROVISIONING, LocalDateTime.now());
+                    }
+                    pending.add(new Pending(row.line(), existing.get().getId(), row.request()));
+                }
+            }
+        }
+        provisionAll(job, pending, output);
+    }
+
+    private void provisionAll(UserImportJob job, List<Pending> pending, OutputStream output) throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = pending.stream()
+                    .map(user -> executor.submit(() -> {
+                        provisioningPermits.acquire();
+                        try {
+                            return provisioningPipeline.provision(user.userId(), user.request());
+                        } finally {
+                            provisioningPermits.release();
+                        }
+                    }))
+                    .toList();
+            for (int i = 0; i < pending.size(); i++) {
+                Pending user = pending.get(i);
+                boolean provisioned;
+                try {
+                    provisioned = results.get(i).get();
+                } catch (ExecutionException e) {
+                    provisioned = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Import interrupted", e);
+                }
+                if (provisioned) {
+                    job.setImported(job.getImported() + 1);
+                } else {
+                    reject(job, output, user.line(),
+                            "Keycloak provisioning failed for user " + user.userId());
+                }
+            }
+        }
+    }
+
+    private void reject(UserImportJob job, OutputStream output, long line, String message) throws IOException {
+        job.setFailed(job.getFailed() + 1);
+        write(output, event("error", job, line, message));
+    }
+
+    private String validate(UserRequest request) {
+        return ImportSupport.joinErrors(ImportSupport.violations(validator, request));
+    }
+
+    private static UserRequest fromCsv(CsvRecord record) {
+        UserRequest request = new UserRequest();
+        request.setUsername(record.field("username"));
+        request.setPassword(record.field("password"));
+        request.setFirstName(record.field("first_name"));
+        request.setLastName(record.field("last_name"));
+        request.setEmail(record.field("email"));
+        request.setPhone(record.field("phone"));
+
+        AddressDTO address = new AddressDTO();
+        address.setStreet(record.field("street"));
+        address.setCity(record.field("city"));
+        address.setState(record.field("state"));
+        address.setCountry(record.field("country"));
+        address.setZipcode(record.field("zipcode"));
+        boolean hasAddress = Stream.of(address.getStreet(), address.getCity(), address.getState(),
+                address.getCountry(), address.getZipcode()).anyMatch(value -> value != null);
+        if (hasAddress) {
+            request.setAddress(address);
+        }
+        return request;
+    }
+
+    private static UserImportEvent event(String type, UserImportJob job, Long line, String message) {
+        boolean counts = !type.equals("error");
+        return new UserImportEvent(type, job.getId(), line, message,
+                counts ? job.getProcessed() : null,
+                counts ? job.getImported() : null,
+                counts ? job.getFailed() : null);
+    }
+
+    private void write(OutputStream output, UserImportEvent event) throws IOException {
+        ImportSupport.writeEvent(output, objectMapper, event);
+    }
+}
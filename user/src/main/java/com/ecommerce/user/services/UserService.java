@@ -1,45 +1,189 @@
 package com.ecommerce.user.services;
 
 import com.ecommerce.user.dto.AddressDTO;
+import com.ecommerce.user.dto.UserPageResponse;
 import com.ecommerce.user.dto.UserRequest;
 import com.ecommerce.user.dto.UserResponse;
 import com.ecommerce.user.models.Address;
+import com.ecommerce.user.models.ProvisioningStatus;
 import com.ecommerce.user.models.User;
 import com.ecommerce.user.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    // UserResponse field name -> document field
+    private static final Map<String, String> PROJECTABLE_FIELDS = Map.of(
+            "id", "_id",
+            "keyCloakId", "keycloakId",
+            "firstName", "firstName",
+            "lastName", "lastName",
+            "email", "email",
+            "phone", "phone",
+            "role", "role",
+            "address", "address",
+            "provisioningStatus", "provisioningStatus");
+
     private final UserRepository userRepository;
-    private final KeyCloakAdminService keyCloakAdminService;
+    private final KeyCloakProvisioningPipeline provisioningPipeline;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
 //    private List<User> userList = new ArrayList<>();
 //    private Long nextId = 1L;
 
-    public List<UserResponse> fetchAllUsers(){
-        return userRepository.findAll().stream()
+    /**
+     * Keyset page ordered by {@code _id}; {@code fields} limits what Mongo
+     * returns, {@code null} meaning every field.
+     */
+    public UserPageResponse fetchUsers(String cursor, int size, Set<String> fields) {
+        Query query = projectedQuery(fields)
+                .with(Sort.by("_id"))
+                .limit(size + 1);
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(Criteria.where("_id").gt(decodeCursor(cursor)));
+        }
+        List<User> users = mongoTemplate.find(query, User.class);
+        boolean hasMore = users.size() > size;
+        List<User> page = hasMore ? users.subList(0, size) : users;
+        List<UserResponse> responses = page.stream()
+                .map(user -> mapToUserResponse(user, fields))
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1).getId()) : null;
+        return new UserPageResponse(responses, nextCursor);
+    }
+
+    /**
+     * Writes every user as a JSON array straight from the Mongo cursor,
+     * so memory use does not grow with the collection.
+     */
+    public void writeUsers(OutputStream out, Set<String> fields) {
+        Query query = projectedQuery(fields)
+                .with(Sort.by("_id"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        try (Stream<User> users = mongoTemplate.stream(query, User.class);
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(mapToUserResponse(iterator.next(), fields));
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of {@link UserResponse} field names.
+     *
+     * @return the requested fields, or {@code null} for all of them
+     */
+    public Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> parsed = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.strip();
+            if (!PROJECTABLE_FIELDS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field " + name);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    private Query projectedQuery(Set<String> fields) {
+        Query query = new Query();
+        if (fields != null) {
+            // _id is always returned as it drives the cursor
+            fields.forEach(field -> query.fields().include(PROJECTABLE_FIELDS.get(field)));
+        }
+        return query;
+    }
+
+    private String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ObjectId decodeCursor(String cursor) {
+        try {
+            return new ObjectId(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Resolves many users with a single {@code $in} query; unknown ids are
+     * left out of the result.
+     */
+    public List<UserResponse> fetchUsersByIds(List<String> ids) {
+        List<String> userIds = ids.stream()
+                .distinct()
+                .toList();
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findByIdIn(userIds).stream()
                 .map(this::mapToUserResponse)
                 .collect(Collectors.toList());
     }
 
-    public void addUser(UserRequest userRequest){
+    /**
+     * Stores the user as provisioning and hands the Keycloak work to the
+     * pipeline. A signup whose earlier attempt failed replaces that record.
+     *
+     * @return the accepted user, or empty when the provisioning queue is full
+     */
+    public Optional<UserResponse> addUser(UserRequest userRequest){
 //        user.setId(nextId++);
-        String token = keyCloakAdminService.getAdminAccessToken();
-        String keycloakUserId =
-                keyCloakAdminService.createUser(token, userRequest);
+        userRepository.findByEmail(userRequest.getEmail())
+                .filter(existing -> existing.getProvisioningStatus() == ProvisioningStatus.FAILED)
+                .ifPresent(failed -> userRepository.deleteByIdAndProvisioningStatus(
+                        failed.getId(), ProvisioningStatus.FAILED));
+        User savedUser = userRepository.save(newProvisioningUser(userRequest));
 
+        if (!provisioningPipeline.submit(savedUser.getId(), userRequest)) {
+            userRepository.deleteById(savedUser.getId());
+            return Optional.empty();
+        }
+        return Optional.of(mapToUserResponse(savedUser));
+    }
+
+    User newProvisioningUser(UserRequest userRequest) {
         User user = new User();
         updateUserFromRequest(user, userRequest);
-        user.setKeycloakId(keycloakUserId);
-
-        keyCloakAdminService.assignRealmRoleToUser(userRequest.getUsername(),
-                "USER", keycloakUserId);
-        userRepository.save(user);
+        user.setProvisioningStatus(ProvisioningStatus.PROVISIONING);
+        user.setProvisioningQueuedAt(LocalDateTime.now());
+        return user;
     }
 
     public Optional<UserResponse> fetchUser(String id) {
@@ -73,16 +217,40 @@ public class UserService {
     }
 
     private UserResponse mapToUserResponse(User user){
+        return mapToUserResponse(user, null);
+    }
+
+    /**
+     * Only copies the requested fields, since a projected document still
+     * carries entity defaults such as the role for fields Mongo left out.
+     */
+    private UserResponse mapToUserResponse(User user, Set<String> fields){
         UserResponse response = new UserResponse();
-        response.setKeyCloakId(user.getKeycloakId());
         response.setId(String.valueOf(user.getId()));
-        response.setFirstName(user.getFirstName());
-        response.setLastName(user.getLastName());
-        response.setEmail(user.getEmail());
-        response.setPhone(user.getPhone());
-        response.setRole(user.getRole());
+        if (fields == null || fields.contains("keyCloakId")) {
+            response.setKeyCloakId(user.getKeycloakId());
+        }
+        if (fields == null || fields.contains("firstName")) {
+            response.setFirstName(user.getFirstName());
+        }
+        if (fields == null || fields.contains("lastName")) {
+            response.setLastName(user.getLastName());
+        }
+        if (fields == null || fields.contains("email")) {
+            response.setEmail(user.getEmail());
+        }
+        if (fields == null || fields.contains("phone")) {
+            response.setPhone(user.getPhone());
+        }
+        if (fields == null || fields.contains("role")) {
+            response.setRole(user.getRole());
+        }
+        if (fields == null || fields.contains("provisioningStatus")) {
+            response.setProvisioningStatus(user.getProvisioningStatus() != null
+                    ? user.getProvisioningStatus() : ProvisioningStatus.ACTIVE);
+        }
 
-        if (user.getAddress() != null) {
+        if ((fields == null || fields.contains("address")) && user.getAddress() != null) {
             AddressDTO addressDTO = new AddressDTO();
             addressDTO.setStreet(user.getAddress().getStreet());
             addressDTO.setCity(user.getAddress().getCity());
@@ -0,0 +1,153 @@
+package com.ecommerce.user.services;
+
+import com.ecommerce.shared.imports.ImportFormat;
+import com.ecommerce.user.dto.UserImportEvent;
+import com.ecommerce.user.dto.UserRequest;
+import com.ecommerce.user.models.ProvisioningStatus;
+import com.ecommerce.user.models.User;
+import com.ecommerce.user.models.UserImportJob;
+import com.ecommerce.user.repository.UserImportJobRepository;
+import com.ecommerce.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.validation.Validator;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+    private static final String IMPORT_ID = "import-1";
+    private static final String USER_ID = "user-1";
+    private static final String ROW =
+            "{\"username\":\"ann\",\"password\":\"secret1\",\"firstName\":\"Ann\",\"lastName\":\"Lee\",\"email\":\"ann@example.com\"}\n";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserImportJobRepository jobRepository = mock(UserImportJobRepository.class);
+    private final UserService userService = mock(UserService.class);
+    private final KeyCloakProvisioningPipeline provisioningPipeline = mock(KeyCloakProvisioningPipeline.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new UserImportService(mongoTemplate, userRepository, jobRepository, userService,
+                provisioningPipeline, mock(Validator.class), objectMapper, 500, 4, Duration.ofMinutes(10));
+
+        // The earlier run stored the row but stopped before its first checkpoint
+        UserImportJob job = new UserImportJob();
+        job.setId(IMPORT_ID);
+        job.setOwner("owner");
+        when(jobRepository.existsById(IMPORT_ID)).thenReturn(true);
+        when(jobRepository.claim(eq(IMPORT_ID), anyString(), any(), any())).thenReturn(1L);
+        when(jobRepository.findById(IMPORT_ID)).thenReturn(Optional.of(job));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(UserImportJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(userService.newProvisioningUser(any(UserRequest.class))).thenAnswer(invocation -> new User());
+
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0)));
+        BulkOperations bulkOps = mock(BulkOperations.class);
+        when(bulkOps.insert(anyList())).thenReturn(bulkOps);
+        when(bulkOps.execute()).thenThrow(duplicate);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOps);
+    }
+
+    @Test
+    void resumeRequeuesUsersTheStaleSweepFailed() throws Exception {
+        storedUser(IMPORT_ID, ProvisioningStatus.FAILED);
+        when(userRepository.requeueImported(eq(USER_ID), eq(IMPORT_ID), eq(ProvisioningStatus.FAILED),
+                eq(ProvisioningStatus.PROVISIONING), any(LocalDateTime.class))).thenReturn(1L);
+        when(provisioningPipeline.provision(eq(USER_ID), any(UserRequest.class))).thenReturn(true);
+
+        UserImportEvent summary = summary(resume());
+
+        InOrder order = inOrder(userRepository, provisioningPipeline);
+        order.verify(userRepository).requeueImported(eq(USER_ID), eq(IMPORT_ID), eq(ProvisioningStatus.FAILED),
+                eq(ProvisioningStatus.PROVISIONING), any(LocalDateTime.class));
+        order.verify(provisioningPipeline).provision(eq(USER_ID), any(UserRequest.class));
+        assertThat(summary.getImported()).isEqualTo(1L);
+        assertThat(summary.getFailed()).isZero();
+    }
+
+    @Test
+    void resumeProvisionsUnfinishedUsersWithoutRequeueing() throws Exception {
+        storedUser(IMPORT_ID, ProvisioningStatus.PROVISIONING);
+        when(provisioningPipeline.provision(eq(USER_ID), any(UserRequest.class))).thenReturn(true);
+
+        UserImportEvent summary = summary(resume());
+
+        verify(userRepository, never()).requeueImported(any(), any(), any(), any(), any());
+        assertThat(summary.getImported()).isEqualTo(1L);
+    }
+
+    @Test
+    void failedUserOfAnotherImportIsRejected() throws Exception {
+        storedUser("import-0", ProvisioningStatus.FAILED);
+
+        List<UserImportEvent> events = resume();
+
+        verify(userRepository, never()).requeueImported(any(), any(), any(), any(), any());
+        verify(provisioningPipeline, never()).provision(any(), any());
+        assertThat(events).anyMatch(event -> "Email already exists".equals(event.getMessage()));
+        assertThat(summary(events).getFailed()).isEqualTo(1L);
+    }
+
+    private void storedUser(String importId, ProvisioningStatus status) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail("ann@example.com");
+        user.setImportId(importId);
+        user.setProvisioningStatus(status);
+        when(userRepository.findByEmail("ann@example.com")).thenReturn(Optional.of(user));
+    }
+
+    private List<UserImportEvent> resume() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importService.importUsers(new ByteArrayInputStream(ROW.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.NDJSON, IMPORT_ID, output);
+        return output.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, UserImportEvent.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private static UserImportEvent summary(List<UserImportEvent> events) {
+        assertThat(events).isNotEmpty();
+        UserImportEvent last = events.get(events.size() - 1);
+        assertThat(last.getType()).isEqualTo("summary");
+        return last;
+    }
+}